@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compare two JMH result files (JSON): for each benchmark found in both files, display both scores
+ * and the relative change. Whether a change is an improvement depends on the score unit:
+ * lower is better for a time per operation, higher is better for a throughput.
+ * <p>
+ * Usage: <code>BenchmarkCompare baseline.json candidate.json</code>.
+ */
+public class BenchmarkCompare {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkCompare <baseline.json> <candidate.json>");
+            System.exit(1);
+        }
+        final var baseline = read(Path.of(args[0]));
+        final var candidate = read(Path.of(args[1]));
+
+        System.out.printf(Locale.ROOT, "%-70s %14s %14s %9s  %s%n", "Benchmark", "Baseline", "Candidate", "Change", "Unit");
+        for (final var e : baseline.entrySet()) {
+            final var other = candidate.get(e.getKey());
+            if (other == null) {
+                continue;
+            }
+            final var before = e.getValue();
+            final double change = (other.score() - before.score()) / before.score() * 100;
+            System.out.printf(Locale.ROOT, "%-70s %14.3f %14.3f %+8.1f%%  %s%n",
+                    e.getKey(), before.score(), other.score(), change, before.unit());
+        }
+    }
+
+    private static Map<String, Score> read(Path file) throws IOException {
+        final var results = new LinkedHashMap<String, Score>();
+        for (final JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            // Benchmarks are identified by their name and their parameters.
+            final var name = new StringBuilder(result.path("benchmark").asText()
+                    .replaceFirst("^com\\.broadcom\\.tanzu\\.demos\\.chessai\\.", ""));
+            final var params = new TreeMap<String, String>();
+            result.path("params").properties().forEach(p -> params.put(p.getKey(), p.getValue().asText()));
+            params.forEach((k, v) -> name.append(' ').append(k).append('=').append(v));
+            final var metric = result.path("primaryMetric");
+            results.put(name.toString(), new Score(metric.path("score").asDouble(), metric.path("scoreUnit").asText()));
+        }
+        return results;
+    }
+
+    private record Score(double score, String unit) {
+    }
+}
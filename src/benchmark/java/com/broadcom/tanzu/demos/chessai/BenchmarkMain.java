@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Run benchmarks using JMH command line options (such as <code>BoardLoadBenchmark -p plies=100</code>),
+ * writing results to a JSON file unless another result file is set.
+ * <p>
+ * Each run gets its own result file in the directory set by the <code>benchmark.result</code> system property
+ * (<code>target/benchmarks</code> by default): use {@link BenchmarkCompare} to compare two runs.
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        final var cmdOptions = new CommandLineOptions(args);
+        final var options = new OptionsBuilder().parent(cmdOptions);
+        if (cmdOptions.getResult().hasValue() || cmdOptions.getResultFormat().hasValue()) {
+            new Runner(options.build()).run();
+        } else {
+            new Runner(withJsonResult(options, "jmh").build()).run();
+        }
+    }
+
+    /**
+     * Create options for a benchmark with its own main class, writing results to a JSON file.
+     */
+    public static ChainedOptionsBuilder options(Class<?> benchmark) {
+        return withJsonResult(new OptionsBuilder().include(benchmark.getSimpleName()), benchmark.getSimpleName());
+    }
+
+    private static ChainedOptionsBuilder withJsonResult(ChainedOptionsBuilder options, String name) {
+        final var dir = Path.of(System.getProperty("benchmark.result", "target/benchmarks"));
+        try {
+            Files.createDirectories(dir);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to create result directory: " + dir, e);
+        }
+        final var timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        final var file = dir.resolve(name + "-" + timestamp + ".json");
+        System.out.println("Benchmark results will be written to " + file);
+        return options.resultFormat(ResultFormatType.JSON).result(file.toString());
+    }
+}
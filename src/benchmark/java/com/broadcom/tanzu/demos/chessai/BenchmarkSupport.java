@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.github.fppt.jedismock.RedisServer;
+import com.github.fppt.jedismock.datastructures.Slice;
+import com.github.fppt.jedismock.operations.server.MockExecutor;
+import com.github.fppt.jedismock.server.Response;
+import com.github.fppt.jedismock.server.ServiceOptions;
+import io.github.wolfraam.chessgame.ChessGame;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+class BenchmarkSupport {
+    private BenchmarkSupport() {
+    }
+
+    static RedisServer startRedis() throws IOException {
+        // Use an in-process Redis server as a local stand-in, listening on a random port.
+        final var server = RedisServer.newRedisServer();
+        // The mock server does not report any version, which the Redis health check expects.
+        server.setOptions(ServiceOptions.withInterceptor((state, command, params) -> "info".equalsIgnoreCase(command)
+                ? Response.bulkString(Slice.create("# Server\r\nredis_version:7.2.0\r\n"))
+                : MockExecutor.proceed(state, command, params)));
+        server.start();
+        return server;
+    }
+
+    static StringRedisTemplate newRedisTemplate(RedisServer server) {
+        final var factory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()));
+        factory.afterPropertiesSet();
+        factory.start();
+        return new StringRedisTemplate(factory);
+    }
+
+    static BoardStorage newStorage(StringRedisTemplate redis, BoardStorage.Layout layout) throws IOException {
+        final var keys = new KeysBoardStorage(redis);
+        return switch (layout) {
+            case KEYS -> keys;
+            case HASH -> new HashBoardStorage(redis, keys);
+            case PACKED -> {
+                final var archive = Files.createTempFile("boards-", ".archive");
+                archive.toFile().deleteOnExit();
+                yield new PackedBoardStorage(redis, new HashBoardStorage(redis, keys),
+                        new BoardArchive(archive, new SimpleMeterRegistry()));
+            }
+        };
+    }
+
+    static ConfigurableApplicationContext startApp(RedisServer redis, List<String> args) {
+        // Start the app on a random port, using the in-process Redis server.
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        final var appArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--management.server.port=-1",
+                "--spring.docker.compose.enabled=false",
+                "--spring.data.redis.host=" + redis.getHost(),
+                "--spring.data.redis.port=" + redis.getBindPort(),
+                "--app.chess.archive.enabled=false",
+                "--logging.level.com.broadcom.tanzu=WARN"));
+        appArgs.addAll(args);
+        return new SpringApplicationBuilder(Application.class).run(appArgs.toArray(String[]::new));
+    }
+
+    static String baseUri(ConfigurableApplicationContext app) {
+        return "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+    }
+
+    static void awaitAIMoves(ConfigurableApplicationContext app) throws InterruptedException {
+        // Let pending AI moves complete before going on (or stopping the app).
+        final var executor = app.getBean("taskExecutor", ThreadPoolTaskExecutor.class);
+        while (executor.getQueueSize() > 0 || executor.getActiveCount() > 0) {
+            Thread.sleep(100);
+        }
+    }
+
+    static ChessGame randomGame(int plies, long seed) {
+        // Play random legal moves until we get a game which is still running after the given number of plies.
+        final var random = new Random(seed);
+        while (true) {
+            final var game = new ChessGame();
+            while (game.getMoves().size() < plies && game.getGameResultType() == null) {
+                // Sort legal moves to get the same game for a given seed.
+                final var moves = game.getLegalMoves().stream()
+                        .sorted(Comparator.comparing(ChessGameUtils::toUci))
+                        .toList();
+                game.playMove(moves.get(random.nextInt(moves.size())));
+            }
+            if (game.getMoves().size() == plies && game.getGameResultType() == null) {
+                return game;
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.github.wolfraam.chessgame.ChessGame;
+import io.github.wolfraam.chessgame.notation.NotationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure board load latency depending on the game length and the storage layout,
+ * with snapshots disabled (full replay) or enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardLoadBenchmark {
+    @Param({"10", "100", "300"})
+    int plies;
+
+    @Param({"0", "20"})
+    int snapshotInterval;
+
+    // Storage layout (see BoardStorage.Layout): snapshots are not supported by the legacy layout.
+    @Param({"HASH", "PACKED"})
+    String layout;
+
+    private RedisServer server;
+    private BoardRepository repo;
+    private String boardId;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = BenchmarkSupport.startRedis();
+        final var redis = BenchmarkSupport.newRedisTemplate(server);
+        final var meterRegistry = new SimpleMeterRegistry();
+        // The board cache is disabled, since we want to measure how boards are loaded from Redis.
+        repo = new BoardRepository(BenchmarkSupport.newStorage(redis, BoardStorage.Layout.valueOf(layout)),
+                new BoardCache(meterRegistry, 0, Duration.ZERO), meterRegistry,
+                ChessGame.STANDARD_INITIAL_FEN, snapshotInterval, 1);
+
+        // Save the board after each move, just like a real game would do.
+        final var expected = BenchmarkSupport.randomGame(plies, 42);
+        var board = repo.newInstance();
+        boardId = board.id();
+        for (final var move : expected.getNotationList(NotationType.UCI)) {
+            board = repo.load(boardId).orElseThrow();
+            board.game().playMove(NotationType.UCI, move);
+            repo.save(board);
+        }
+
+        final var loaded = repo.load(boardId).orElseThrow();
+        if (!loaded.game().getFen().equals(expected.getFen())) {
+            throw new IllegalStateException("Unexpected board state: " + loaded.game().getFen());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.stop();
+    }
+
+    @Benchmark
+    public Board load() {
+        return repo.load(boardId).orElseThrow();
+    }
+}
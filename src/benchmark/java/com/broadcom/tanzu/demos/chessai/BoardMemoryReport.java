@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import io.github.wolfraam.chessgame.ChessGame;
+import io.github.wolfraam.chessgame.notation.NotationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report the Redis memory used by a single game, for each storage layout and game length.
+ * The archive size of a game is also reported for the packed layout.
+ * <p>
+ * Usage: <code>BoardMemoryReport [plies...]</code> (defaults to 40, 80 and 160 plies).
+ * <code>MEMORY USAGE</code> is used when the Redis server supports it (it includes Redis overhead),
+ * otherwise the size of stored keys and values is reported.
+ */
+public class BoardMemoryReport {
+    public static void main(String[] args) throws Exception {
+        final var plies = args.length == 0 ? List.of(40, 80, 160) : List.of(args).stream().map(Integer::valueOf).toList();
+        final var server = BenchmarkSupport.startRedis();
+        try {
+            final var redis = BenchmarkSupport.newRedisTemplate(server);
+            System.out.printf("%-8s %6s %12s %12s %12s%n", "layout", "plies", "redis bytes", "bytes/move", "archive");
+            for (final var layout : BoardStorage.Layout.values()) {
+                for (final int count : plies) {
+                    report(redis, layout, count);
+                }
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static void report(StringRedisTemplate redis, BoardStorage.Layout layout, int plies) throws Exception {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var storage = BenchmarkSupport.newStorage(redis, layout);
+        final var repo = new BoardRepository(storage, new BoardCache(meterRegistry, 0, Duration.ZERO), meterRegistry,
+                ChessGame.STANDARD_INITIAL_FEN, 20, 1);
+
+        // Save the board after each move, just like a real game would do.
+        var board = repo.newInstance();
+        final var id = board.id();
+        for (final var move : BenchmarkSupport.randomGame(plies, 42).getNotationList(NotationType.UCI)) {
+            board.game().playMove(NotationType.UCI, move);
+            board = repo.save(board);
+        }
+
+        long bytes = 0;
+        for (final var key : redis.keys("chess::" + id + "*")) {
+            bytes += memoryUsage(redis, key);
+        }
+        String archived = "-";
+        if (storage instanceof PackedBoardStorage packed) {
+            // Activity indexes include this board id.
+            bytes += 2L * (id.length() + Double.BYTES);
+
+            final var file = Files.createTempFile("boards-", ".archive");
+            try (final var archive = new BoardArchive(file, meterRegistry)) {
+                archive.append(List.of(packed.readEntry(id)));
+                archived = String.valueOf(Files.size(file));
+            } finally {
+                Files.delete(file);
+            }
+        }
+        System.out.printf("%-8s %6d %12d %12.1f %12s%n", layout, plies, bytes, (double) bytes / plies, archived);
+    }
+
+    private static long memoryUsage(StringRedisTemplate redis, String key) {
+        try {
+            final var usage = redis.execute((RedisCallback<Object>) conn ->
+                    conn.execute("MEMORY", "USAGE".getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8)));
+            if (usage instanceof Long value) {
+                return value;
+            }
+        } catch (Exception ignored) {
+            // This command is not supported by the in-process Redis server.
+        }
+        long bytes = key.length();
+        final var type = redis.type(key);
+        if (type == DataType.STRING) {
+            bytes += size(redis.opsForValue().get(key));
+        } else if (type == DataType.LIST) {
+            for (final var value : redis.opsForList().range(key, 0, -1)) {
+                bytes += size(value);
+            }
+        } else if (type == DataType.HASH) {
+            final var k = key.getBytes(StandardCharsets.UTF_8);
+            // Hash values may be binary strings.
+            final var entries = redis.execute((RedisCallback<Map<byte[], byte[]>>) conn -> conn.hashCommands().hGetAll(k));
+            for (final var e : entries.entrySet()) {
+                bytes += e.getKey().length + e.getValue().length;
+            }
+        }
+        return bytes;
+    }
+
+    private static long size(String value) {
+        return value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.broadcom.tanzu.demos.chessai.engine.Tablebase;
+import io.github.wolfraam.chessgame.board.Side;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.GenericApplicationContext;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.linkbuilder.StandardLinkBuilder;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure how long it takes to render the board fragment, depending on the game length.
+ * A square is selected on the board, so that legal moves are displayed as well.
+ * Building the view model is part of the rendering time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardRenderBenchmark {
+    @Param({"0", "40"})
+    int plies;
+
+    private SpringTemplateEngine templateEngine;
+    private GenericApplicationContext appCtx;
+    private BoardFormatter boardFormatter;
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        // Render templates just like Spring MVC does, including references to beans.
+        appCtx = new GenericApplicationContext();
+        appCtx.registerBean(Tablebase.class, Tablebase::empty);
+        appCtx.registerBean("boardFormatter", BoardFormatter.class);
+        appCtx.refresh();
+        boardFormatter = appCtx.getBean(BoardFormatter.class);
+
+        final var resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCacheable(true);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        // There is no servlet context here: context-relative links are rendered as is.
+        templateEngine.setLinkBuilder(new StandardLinkBuilder() {
+            @Override
+            protected String computeContextPath(IExpressionContext context, String base, Map<String, Object> parameters) {
+                return "";
+            }
+        });
+
+        final var game = BenchmarkSupport.randomGame(plies, 42);
+        // Select a white piece which can be moved.
+        final var from = game.getLegalMoves().stream()
+                .filter(m -> game.getPiece(m.from).side == Side.WHITE)
+                .findFirst().orElseThrow().from;
+        board = new Board("benchmark", game, from.name, null, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        appCtx.close();
+    }
+
+    @Benchmark
+    public String renderBoardFragment() {
+        final var ctx = new Context();
+        ctx.setVariable(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                new ThymeleafEvaluationContext(appCtx, null));
+        ctx.setVariable("board", board);
+        ctx.setVariable("view", boardFormatter.format(board));
+        return templateEngine.process("board-fragment", ctx);
+    }
+}
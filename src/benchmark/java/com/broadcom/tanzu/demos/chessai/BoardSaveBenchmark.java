@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.github.wolfraam.chessgame.ChessGame;
+import io.github.wolfraam.chessgame.notation.NotationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure board save latency depending on the game length, for each storage layout.
+ * Each save selects or unselects a square, just like a player click does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BoardSaveBenchmark {
+    @Param({"10", "100", "300"})
+    int plies;
+
+    // Storage layout (see BoardStorage.Layout), which cannot be used as a parameter type since it is not public.
+    @Param({"KEYS", "HASH", "PACKED"})
+    String layout;
+
+    private RedisServer server;
+    private BoardRepository repo;
+    private Board board;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = BenchmarkSupport.startRedis();
+        final var redis = BenchmarkSupport.newRedisTemplate(server);
+        final var meterRegistry = new SimpleMeterRegistry();
+        repo = new BoardRepository(BenchmarkSupport.newStorage(redis, BoardStorage.Layout.valueOf(layout)), new BoardCache(meterRegistry, 0, Duration.ZERO), meterRegistry,
+                ChessGame.STANDARD_INITIAL_FEN, 20, 1);
+
+        final var game = BenchmarkSupport.randomGame(plies, 42);
+        board = repo.newInstance();
+        board.game().playMoves(NotationType.UCI, game.getNotationList(NotationType.UCI));
+        board = repo.save(board);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        server.stop();
+    }
+
+    @Benchmark
+    public Board save() {
+        // The saved board is the one we update next, so that its version is always up-to-date.
+        final var currentSquare = board.currentSquare() == null ? "e2" : null;
+        board = repo.save(new Board(board.id(), board.game(), currentSquare, null, board.version()));
+        return board;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.broadcom.tanzu.demos.chessai.engine.Position;
+import io.github.wolfraam.chessgame.ChessGame;
+import io.github.wolfraam.chessgame.notation.NotationType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure how long it takes to replay a full game from its UCI moves (which is how a board is loaded
+ * without snapshots, and how the engine gets its position), and to export a game to PGN.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChessGameBenchmark {
+    @Param({"10", "100", "300"})
+    int plies;
+
+    private List<String> moves;
+    private ChessGame game;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkSupport.randomGame(plies, 42);
+        moves = List.copyOf(game.getNotationList(NotationType.UCI));
+    }
+
+    @Benchmark
+    public ChessGame replay() {
+        final var replayed = new ChessGame();
+        replayed.playMoves(NotationType.UCI, moves);
+        return replayed;
+    }
+
+    @Benchmark
+    public Position replayEngine() {
+        final var pos = Position.fromFen(Position.STANDARD_FEN);
+        for (final var move : moves) {
+            pos.play(move);
+        }
+        return pos;
+    }
+
+    @Benchmark
+    public String pgn() {
+        return ChessGameUtils.getPGNData(game);
+    }
+}
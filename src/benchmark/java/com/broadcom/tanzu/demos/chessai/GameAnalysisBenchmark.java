@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.broadcom.tanzu.demos.chessai.engine.Tablebase;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.wolfraam.chessgame.ChessGame;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Measure game analysis throughput (positions per second) depending on the number of threads.
+ * <p>
+ * Usage: <code>GameAnalysisBenchmark [--games=50] [--depth=6] [threads...]</code>
+ * (defaults to 1, 2, 4... threads up to the number of CPU cores).
+ * Each run starts with an empty position cache; the last run is repeated to measure the cache.
+ */
+public class GameAnalysisBenchmark {
+    public static void main(String[] args) throws Exception {
+        final int games = intOption(args, "--games=", 50);
+        final int depth = intOption(args, "--depth=", 6);
+        int[] threads = Arrays.stream(args).filter(a -> !a.startsWith("--")).mapToInt(Integer::parseInt).toArray();
+        if (threads.length == 0) {
+            final int cores = Runtime.getRuntime().availableProcessors();
+            threads = IntStream.iterate(1, t -> t < cores, t -> t * 2).toArray();
+            threads = Arrays.copyOf(threads, threads.length + 1);
+            threads[threads.length - 1] = cores;
+        }
+
+        final var server = BenchmarkSupport.startRedis();
+        final var redis = BenchmarkSupport.newRedisTemplate(server);
+        try {
+            final var meterRegistry = new SimpleMeterRegistry();
+            final var repo = new BoardRepository(BenchmarkSupport.newStorage(redis, BoardStorage.Layout.PACKED),
+                    new BoardCache(meterRegistry, 0, Duration.ZERO), meterRegistry,
+                    ChessGame.STANDARD_INITIAL_FEN, 20, 1);
+            final var store = new AnalysisStore(redis, new ObjectMapper(), Duration.ofHours(1));
+            final var randomGames = new ArrayList<ChessGame>(games);
+            for (int i = 0; i < games; ++i) {
+                randomGames.add(BenchmarkSupport.randomGame(20 + i % 60, i));
+            }
+            final var ids = repo.saveAll(randomGames);
+
+            // Warm up the JIT before measuring anything, so that the first run is not penalized.
+            try (final var analyzer = new GameAnalyzer(repo, store, Tablebase.empty(), new SimpleMeterRegistry(),
+                    depth, 1, DataSize.ofMegabytes(32), 100_000, 100)) {
+                analyzer.analyze(ids);
+            }
+
+            System.out.printf("%8s %8s %10s %10s %10s %12s %8s%n",
+                    "threads", "depth", "positions", "evaluated", "time (ms)", "positions/s", "speedup");
+            double baseline = 0;
+            for (int i = 0; i < threads.length; ++i) {
+                try (final var analyzer = new GameAnalyzer(repo, store, Tablebase.empty(), new SimpleMeterRegistry(),
+                        depth, threads[i], DataSize.ofMegabytes(32), 100_000, 100)) {
+                    final int runs = i == threads.length - 1 ? 2 : 1;
+                    for (int run = 0; run < runs; ++run) {
+                        final var report = analyzer.analyze(ids);
+                        if (baseline == 0) {
+                            baseline = report.positionsPerSecond();
+                        }
+                        System.out.printf("%8d %8d %10d %10d %10d %12.0f %7.1fx%n", threads[i], depth,
+                                report.positions(), report.evaluated(), report.elapsedMillis(),
+                                report.positionsPerSecond(), report.positionsPerSecond() / baseline);
+                    }
+                }
+            }
+            if (store.load(ids.getFirst()).isEmpty()) {
+                throw new IllegalStateException("Missing analysis for board: " + ids.getFirst());
+            }
+        } finally {
+            ((LettuceConnectionFactory) redis.getConnectionFactory()).destroy();
+            server.stop();
+        }
+    }
+
+    private static int intOption(String[] args, String prefix, int defaultValue) {
+        return Arrays.stream(args).filter(a -> a.startsWith(prefix))
+                .mapToInt(a -> Integer.parseInt(a.substring(prefix.length())))
+                .findFirst().orElse(defaultValue);
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import io.github.wolfraam.chessgame.ChessGame;
+import io.github.wolfraam.chessgame.board.PieceType;
+import io.github.wolfraam.chessgame.board.Side;
+import io.github.wolfraam.chessgame.move.Move;
+import io.github.wolfraam.chessgame.notation.NotationType;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Load test playing full games: start the app with an in-process Redis server, and let virtual players
+ * play against the AI through the HTTP endpoints, just like browsers do.
+ * <p>
+ * Each player creates a board, subscribes to board events with STOMP, and then plays random legal White moves
+ * (two clicks per move), waiting for the AI to play after each move. A new game is started once a game is over.
+ * AI moves are received as <code>MOVE</code> events: the board is reloaded when an <code>UPDATE_BOARD</code>
+ * event is received instead.
+ * <p>
+ * Players are added step by step: for each step we report throughput, click latency and AI turnaround
+ * (from sending the click playing a White move to receiving the AI move event) percentiles. The instance is saturated once
+ * adding players does not increase the number of AI moves per second anymore.
+ * <p>
+ * Usage: <code>GameLoadTest [--players=10,100,1000] [--duration=30s] [--think=1s] [app properties...]</code>.
+ * Other arguments (such as <code>--app.chess.engine.time-limit=200ms</code>) are passed to the app.
+ */
+public class GameLoadTest {
+    private static final Pattern FEN = Pattern.compile("<textarea id=\"moves\"[^>]*>([^<]*)</textarea>");
+    // Throughput must grow by at least this ratio when adding players: otherwise the instance is saturated.
+    private static final double MIN_SCALING = 1.1;
+
+    private final String baseUri;
+    private final Duration think;
+    private final Duration aiTimeout;
+    private final HttpClient http;
+    private final WebSocketStompClient stomp;
+    private volatile boolean stopped;
+
+    private final Recorder clickLatency = new Recorder(3);
+    private final Recorder aiTurnaround = new Recorder(3);
+    private final LongAdder clicks = new LongAdder();
+    private final LongAdder aiMoves = new LongAdder();
+    private final LongAdder games = new LongAdder();
+    private final LongAdder busy = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    // Number of errors by cause, displayed after each step.
+    private final Map<String, LongAdder> errorCauses = new ConcurrentHashMap<>();
+
+    private GameLoadTest(String baseUri, Duration think, Duration aiTimeout) {
+        this.baseUri = baseUri;
+        this.think = think;
+        this.aiTimeout = aiTimeout;
+        this.http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        this.stomp = new WebSocketStompClient(new StandardWebSocketClient());
+        // Board events are sent as JSON.
+        this.stomp.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] players = {10, 50, 100, 500, 1000};
+        var duration = Duration.ofSeconds(30);
+        var think = Duration.ofSeconds(1);
+        final var appArgs = new ArrayList<String>();
+        for (final var arg : args) {
+            if (arg.startsWith("--players=")) {
+                players = Arrays.stream(arg.substring(10).split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (arg.startsWith("--duration=")) {
+                duration = DurationStyle.detectAndParse(arg.substring(11));
+            } else if (arg.startsWith("--think=")) {
+                think = DurationStyle.detectAndParse(arg.substring(8));
+            } else {
+                appArgs.add(arg);
+            }
+        }
+
+        final var redis = BenchmarkSupport.startRedis();
+        final var app = BenchmarkSupport.startApp(redis, appArgs);
+        try {
+            final var test = new GameLoadTest(BenchmarkSupport.baseUri(app), think, Duration.ofMinutes(1));
+            final var results = new ArrayList<StepResult>(players.length);
+            System.out.printf(Locale.ROOT, "%7s  %8s  %8s  %6s  %-27s  %-27s  %5s  %8s  %6s%n",
+                    "Players", "Clicks/s", "AI/s", "Games", "Click p50/p99/p999 (ms)", "AI p50/p99/p999 (ms)",
+                    "Busy", "Timeouts", "Errors");
+            for (final int count : players) {
+                final var result = test.run(count, duration);
+                results.add(result);
+                System.out.println(result);
+                test.errorCauses.forEach((cause, n) -> System.out.printf("         %d errors: %s%n", n.sum(), cause));
+                BenchmarkSupport.awaitAIMoves(app);
+            }
+            report(results);
+        } finally {
+            app.close();
+            redis.stop();
+        }
+    }
+
+    private static void report(List<StepResult> results) {
+        // Find the first step where adding players did not bring more AI moves per second.
+        StepResult best = results.getFirst();
+        for (final var result : results.subList(1, results.size())) {
+            if (result.aiMovesPerSecond() < best.aiMovesPerSecond() * MIN_SCALING || result.timeouts() > 0) {
+                System.out.printf(Locale.ROOT, "%nSaturation: %d players (%.1f AI moves/s, AI p99 %.0f ms);"
+                                + " %d players did not bring more throughput (%.1f AI moves/s, AI p99 %.0f ms)%n",
+                        best.players(), best.aiMovesPerSecond(), best.ai().getValueAtPercentile(99) / 1e6,
+                        result.players(), result.aiMovesPerSecond(), result.ai().getValueAtPercentile(99) / 1e6);
+                return;
+            }
+            best = result;
+        }
+        System.out.printf(Locale.ROOT, "%nNo saturation up to %d players (%.1f AI moves/s)%n",
+                best.players(), best.aiMovesPerSecond());
+    }
+
+    private StepResult run(int players, Duration duration) throws InterruptedException {
+        stopped = false;
+        clickLatency.reset();
+        aiTurnaround.reset();
+        for (final var counter : List.of(clicks, aiMoves, games, busy, timeouts, errors)) {
+            counter.reset();
+        }
+        errorCauses.clear();
+
+        final var threads = new ArrayList<Thread>(players);
+        for (int i = 0; i < players; ++i) {
+            threads.add(Thread.ofVirtual().name("player-" + i).start(this::play));
+            // Players do not all start at the same time.
+            Thread.sleep(Math.max(1, think.toMillis() / players));
+        }
+        // Only measure while all players are playing.
+        clickLatency.reset();
+        aiTurnaround.reset();
+        final long start = System.nanoTime();
+        final long clicksBefore = clicks.sum();
+        final long aiMovesBefore = aiMoves.sum();
+        Thread.sleep(duration);
+        final double elapsed = (System.nanoTime() - start) / 1e9;
+        final var result = new StepResult(players,
+                (clicks.sum() - clicksBefore) / elapsed, (aiMoves.sum() - aiMovesBefore) / elapsed, games.sum(),
+                clickLatency.getIntervalHistogram(), aiTurnaround.getIntervalHistogram(),
+                busy.sum(), timeouts.sum(), errors.sum());
+
+        stopped = true;
+        for (final var t : threads) {
+            t.join();
+        }
+        return result;
+    }
+
+    private void play() {
+        while (!stopped) {
+            StompSession session = null;
+            try {
+                final var boardId = newBoard();
+                final var events = new LinkedBlockingQueue<Event>();
+                session = stomp.connectAsync(baseUri.replace("http", "ws") + "/ws/websocket",
+                        new StompSessionHandlerAdapter() {
+                        }).get(30, TimeUnit.SECONDS);
+                session.subscribe("/topic/chess/" + boardId, new StompFrameHandler() {
+                    @Override
+                    public Type getPayloadType(StompHeaders headers) {
+                        return Map.class;
+                    }
+
+                    @Override
+                    public void handleFrame(StompHeaders headers, Object payload) {
+                        events.add(new Event((Map<?, ?>) payload, System.nanoTime()));
+                    }
+                });
+                playGame(boardId, events);
+                games.increment();
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                error(e.toString());
+            } finally {
+                if (session != null) {
+                    session.disconnect();
+                }
+            }
+        }
+    }
+
+    private void playGame(String boardId, BlockingQueue<Event> events) throws Exception {
+        var game = new ChessGame();
+        while (!stopped && game.getGameResultType() == null) {
+            final var move = randomMove(game);
+            click(boardId, move.from.name);
+            // The AI may play its move before the response to this click is received.
+            final long played = System.nanoTime();
+            final var html = click(boardId, move.to.name);
+            game.playMove(move);
+            if (game.getGameResultType() != null) {
+                break;
+            }
+            if (html.contains("AI is busy")) {
+                // Too many AI moves are pending: clicking on the board again will try again later.
+                busy.increment();
+                Thread.sleep(think);
+                click(boardId, move.to.name);
+            }
+
+            final var event = events.poll(aiTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (event == null) {
+                timeouts.increment();
+                return;
+            }
+            if ("MOVE".equals(event.payload().get("type"))) {
+                game.playMove(NotationType.UCI, (String) event.payload().get("move"));
+            } else {
+                // The board was updated some other way: let's see where we are.
+                final var fen = loadFen(boardId);
+                if (fen.equals(game.getFen())) {
+                    error("AI did not play its move");
+                    return;
+                }
+                game = new ChessGame(fen);
+            }
+            aiTurnaround.recordValue(event.received() - played);
+            aiMoves.increment();
+            Thread.sleep(think);
+        }
+    }
+
+    private void error(String cause) {
+        errors.increment();
+        errorCauses.computeIfAbsent(cause, k -> new LongAdder()).increment();
+    }
+
+    private static Move randomMove(ChessGame game) {
+        // Pawns reaching the last rank are promoted to queens, when moving to an empty square.
+        final var moves = game.getLegalMoves().stream()
+                .filter(m -> m.promotion == null
+                        || (m.promotion == PieceType.QUEEN && game.getPiece(m.to) == null && game.getSideToMove() == Side.WHITE))
+                .toList();
+        return moves.get(ThreadLocalRandom.current().nextInt(moves.size()));
+    }
+
+    private String newBoard() throws Exception {
+        final var resp = send(HttpRequest.newBuilder(URI.create(baseUri + "/chess/new"))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+        final var location = resp.headers().firstValue("Location").orElseThrow();
+        return location.substring(location.lastIndexOf('/') + 1);
+    }
+
+    private String click(String boardId, String square) throws Exception {
+        final long start = System.nanoTime();
+        final var resp = send(HttpRequest.newBuilder(URI.create(baseUri + "/chess/" + boardId + "/click/" + square))
+                .POST(HttpRequest.BodyPublishers.noBody()));
+        clickLatency.recordValue(System.nanoTime() - start);
+        clicks.increment();
+        return resp.body();
+    }
+
+    private String loadFen(String boardId) throws Exception {
+        final var html = send(HttpRequest.newBuilder(URI.create(baseUri + "/chess/" + boardId + "/board")).GET()).body();
+        final var matcher = FEN.matcher(html);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Board state not found: " + boardId);
+        }
+        return matcher.group(1).strip();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        final var resp = http.send(request.timeout(Duration.ofMinutes(1)).build(), HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() >= 400) {
+            throw new IllegalStateException("Unexpected status code: " + resp.statusCode());
+        }
+        return resp;
+    }
+
+    private record Event(Map<?, ?> payload, long received) {
+    }
+
+    private record StepResult(int players, double clicksPerSecond, double aiMovesPerSecond, long games,
+                              Histogram click, Histogram ai, long busy, long timeouts, long errors) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%7d  %8.1f  %8.1f  %6d  %-27s  %-27s  %5d  %8d  %6d",
+                    players, clicksPerSecond, aiMovesPerSecond, games, percentiles(click), percentiles(ai),
+                    busy, timeouts, errors);
+        }
+
+        private static String percentiles(Histogram h) {
+            if (h.getTotalCount() == 0) {
+                return "-";
+            }
+            return String.format(Locale.ROOT, "%.1f / %.1f / %.1f", h.getValueAtPercentile(50) / 1e6,
+                    h.getValueAtPercentile(99) / 1e6, h.getValueAtPercentile(99.9) / 1e6);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test: start the app with an in-process Redis server, and play the first moves of many concurrent games.
+ * Throughput and latency are reported for each number of concurrent games.
+ * <p>
+ * Usage: <code>LoadTest [--virtual] [games...]</code> (defaults to 1000 and 10000 games).
+ * Run this test with and without <code>--virtual</code> to compare platform threads with virtual threads.
+ */
+public class LoadTest {
+    // Each game runs these requests: create a board, play e2e4, and then reload the board.
+    private static final int REQUESTS_PER_GAME = 4;
+
+    public static void main(String[] args) throws Exception {
+        final boolean virtualThreads = Arrays.asList(args).contains("--virtual");
+        final int[] games = Arrays.stream(args).filter(a -> !a.startsWith("--")).mapToInt(Integer::parseInt).toArray();
+
+        final var redis = BenchmarkSupport.startRedis();
+        final var app = BenchmarkSupport.startApp(redis, List.of(
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                // AI moves are not measured here: keep them cheap so that the AI does not take all CPU cores.
+                "--app.chess.engine.max-depth=2",
+                "--app.chess.ai.queue-capacity=100000"));
+        try {
+            final var baseUri = BenchmarkSupport.baseUri(app);
+            for (final int count : games.length == 0 ? new int[]{1000, 10000} : games) {
+                run(baseUri, count, virtualThreads);
+                BenchmarkSupport.awaitAIMoves(app);
+            }
+        } finally {
+            app.close();
+            redis.stop();
+        }
+    }
+
+    private static void run(String baseUri, int games, boolean virtualThreads) throws InterruptedException {
+        final var latencies = new long[games * REQUESTS_PER_GAME];
+        final var requests = new AtomicInteger();
+        final var errors = new AtomicLong();
+
+        // Each game is played by its own virtual thread, whatever the threading mode of the app.
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor();
+             final var client = HttpClient.newBuilder()
+                     .executor(executor)
+                     .followRedirects(HttpClient.Redirect.NEVER)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build()) {
+            final long start = System.nanoTime();
+            final var threads = new ArrayList<Thread>(games);
+            for (int i = 0; i < games; ++i) {
+                threads.add(Thread.ofVirtual().start(() -> {
+                    try {
+                        final var location = send(client, HttpRequest.newBuilder(URI.create(baseUri + "/chess/new"))
+                                .POST(HttpRequest.BodyPublishers.noBody()), latencies, requests)
+                                .headers().firstValue("Location").orElseThrow();
+                        final var boardUri = baseUri + "/chess/" + location.substring(location.lastIndexOf('/') + 1);
+                        for (final var square : new String[]{"e2", "e4"}) {
+                            send(client, HttpRequest.newBuilder(URI.create(boardUri + "/click/" + square))
+                                    .POST(HttpRequest.BodyPublishers.noBody()), latencies, requests);
+                        }
+                        send(client, HttpRequest.newBuilder(URI.create(boardUri + "/board")).GET(), latencies, requests);
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                }));
+            }
+            for (final var t : threads) {
+                t.join();
+            }
+            final long elapsed = System.nanoTime() - start;
+
+            final int count = requests.get();
+            final var sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf(Locale.ROOT,
+                    "%s threads, %,d games: %,d requests in %.1f s (%,.0f requests/s), latency p50 %.1f ms, p99 %.1f ms, max %.1f ms, %d failed games%n",
+                    virtualThreads ? "virtual" : "platform", games, count, elapsed / 1e9, count * 1e9 / elapsed,
+                    percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 1), errors.get());
+        }
+    }
+
+    private static HttpResponse<Void> send(HttpClient client, HttpRequest.Builder request,
+                                           long[] latencies, AtomicInteger requests) throws Exception {
+        final long start = System.nanoTime();
+        final var resp = client.send(request.timeout(Duration.ofMinutes(1)).build(), HttpResponse.BodyHandlers.discarding());
+        latencies[requests.getAndIncrement()] = System.nanoTime() - start;
+        if (resp.statusCode() >= 400) {
+            throw new IllegalStateException("Unexpected status code: " + resp.statusCode());
+        }
+        return resp;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import io.github.wolfraam.chessgame.ChessGame;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Measure bulk PGN import and export throughput, with the peak heap usage of each operation.
+ * <p>
+ * Usage: <code>PgnTransferBenchmark [--layout=PACKED] [games...]</code> (defaults to 1000 and 10000 games).
+ * Run this benchmark with a small heap (such as <code>-Xmx64m</code>) to check that memory usage is bounded.
+ */
+public class PgnTransferBenchmark {
+    public static void main(String[] args) throws Exception {
+        final var layout = Arrays.stream(args).filter(a -> a.startsWith("--layout="))
+                .map(a -> BoardStorage.Layout.valueOf(a.substring("--layout=".length()).toUpperCase(Locale.ROOT)))
+                .findFirst().orElse(BoardStorage.Layout.PACKED);
+        final int[] games = Arrays.stream(args).filter(a -> !a.startsWith("--")).mapToInt(Integer::parseInt).toArray();
+
+        System.out.printf("%-8s %8s %8s %12s %12s%n", "layout", "games", "op", "games/s", "peak heap");
+        for (final int count : games.length == 0 ? new int[]{1000, 10000} : games) {
+            run(layout, count);
+        }
+    }
+
+    private static void run(BoardStorage.Layout layout, int games) throws Exception {
+        final var server = BenchmarkSupport.startRedis();
+        final var redis = BenchmarkSupport.newRedisTemplate(server);
+        final var file = Files.createTempFile("games-", ".pgn");
+        try {
+            // Random games are written to a file first: this is not measured.
+            try (final var out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                final var pgn = new PgnWriter(out);
+                for (int i = 0; i < games; ++i) {
+                    pgn.write(BenchmarkSupport.randomGame(20 + i % 100, i));
+                }
+            }
+
+            final var meterRegistry = new SimpleMeterRegistry();
+            final var repo = new BoardRepository(BenchmarkSupport.newStorage(redis, layout),
+                    new BoardCache(meterRegistry, 0, Duration.ZERO), meterRegistry,
+                    ChessGame.STANDARD_INITIAL_FEN, 20, 1);
+            final var transfer = new PgnTransfer(repo, 100, Long.MAX_VALUE);
+
+            measure(layout, games, "import", () -> {
+                try (InputStream in = Files.newInputStream(file)) {
+                    return transfer.importGames(in).imported();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            measure(layout, games, "export", () -> {
+                try {
+                    return transfer.exportGames(Writer.nullWriter());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } finally {
+            Files.delete(file);
+            ((LettuceConnectionFactory) redis.getConnectionFactory()).destroy();
+            server.stop();
+        }
+    }
+
+    private static void measure(BoardStorage.Layout layout, int games, String op, Supplier<Long> task) throws Exception {
+        // Heap usage is sampled while the operation is running.
+        final var memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        final var peak = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+        final var done = new AtomicBoolean();
+        final var sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (!done.get()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        final long start = System.nanoTime();
+        final long count = task.get();
+        final long elapsed = System.nanoTime() - start;
+        done.set(true);
+        sampler.join();
+        if (count != games) {
+            throw new IllegalStateException("Unexpected number of games for " + op + ": " + count);
+        }
+        System.out.printf("%-8s %8d %8s %12.0f %10d MB%n", layout, games, op,
+                games / (elapsed / 1e9), peak.get() / (1024 * 1024));
+    }
+}
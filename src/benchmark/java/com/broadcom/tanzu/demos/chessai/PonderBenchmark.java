@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.broadcom.tanzu.demos.chessai.engine.OpeningBook;
+import com.broadcom.tanzu.demos.chessai.engine.ParallelSearch;
+import com.broadcom.tanzu.demos.chessai.engine.Position;
+import com.broadcom.tanzu.demos.chessai.engine.Search;
+import com.broadcom.tanzu.demos.chessai.engine.SearchLimits;
+import com.broadcom.tanzu.demos.chessai.engine.Tablebase;
+import com.broadcom.tanzu.demos.chessai.engine.TranspositionTable;
+import io.github.wolfraam.chessgame.ChessGame;
+import io.github.wolfraam.chessgame.notation.NotationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Measure AI move latency with and without pondering, with the ponder hit rate.
+ * <p>
+ * Usage: <code>PonderBenchmark [--games=4] [--plies=20] [--think=1500] [--time-limit=500]</code>
+ * (durations in milliseconds).
+ * The player is simulated: it thinks for a while, selecting the piece to move halfway through,
+ * and it plays one of the best moves found by a shallow search.
+ */
+public class PonderBenchmark {
+    public static void main(String[] args) throws Exception {
+        final int games = intOption(args, "--games=", 4);
+        final int plies = intOption(args, "--plies=", 20);
+        final var think = Duration.ofMillis(intOption(args, "--think=", 1500));
+        final var timeLimit = Duration.ofMillis(intOption(args, "--time-limit=", 500));
+
+        System.out.printf("%-8s %6s %8s %10s %10s %12s %12s%n",
+                "ponder", "moves", "hit", "continued", "miss", "mean (ms)", "p90 (ms)");
+        for (final boolean enabled : new boolean[]{false, true}) {
+            run(enabled, games, plies, think, timeLimit);
+        }
+    }
+
+    private static void run(boolean enabled, int games, int plies, Duration think, Duration timeLimit) throws Exception {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var table = new TranspositionTable(64 * 1024 * 1024);
+        // The opening book is left out, so that pondering starts with the first move.
+        final var book = OpeningBook.empty();
+        final var tablebase = Tablebase.empty();
+        final var latencies = new ArrayList<Long>();
+        try (final var ponderer = new Ponderer(table, book, tablebase, meterRegistry, enabled, 1, 4, 2, 100, 64, timeLimit);
+             final var search = new ParallelSearch(table, tablebase, 1)) {
+            final var strategy = new EngineMoveStrategy(search, book, tablebase, ponderer, meterRegistry, 64, timeLimit, 1);
+            // The simulated player uses its own table, so that it does not help the engine.
+            final var player = new Search(new TranspositionTable(8 * 1024 * 1024));
+            for (int i = 0; i < games; ++i) {
+                final var boardId = "game-" + i;
+                final var random = new Random(i);
+                final var game = new ChessGame();
+                while (game.getMoves().size() < plies && game.getGameResultType() == null) {
+                    final var move = choosePlayerMove(player, game, random);
+                    Thread.sleep(think.toMillis() / 2);
+                    ponderer.ponder(boardId, game, move.substring(0, 2));
+                    Thread.sleep(think.toMillis() / 2);
+                    game.playMove(NotationType.UCI, move);
+                    ponderer.onMove(boardId, move);
+                    if (game.getGameResultType() != null) {
+                        break;
+                    }
+
+                    final long start = System.nanoTime();
+                    final var aiMove = strategy.nextMove(game);
+                    latencies.add(System.nanoTime() - start);
+                    game.playMove(NotationType.UCI, aiMove);
+                    ponderer.ponder(boardId, game, null);
+                }
+                ponderer.cancel(boardId);
+            }
+        }
+
+        final long[] counts = Arrays.stream(Ponderer.Outcome.values())
+                .mapToLong(o -> meterRegistry.get("chess.engine.move").tag("ponder", o.name().toLowerCase(Locale.ROOT))
+                        .timer().count())
+                .toArray();
+        final long total = Arrays.stream(counts).sum();
+        latencies.sort(Comparator.naturalOrder());
+        System.out.printf("%-8s %6d %7.0f%% %9.0f%% %9.0f%% %12.0f %12.0f%n", enabled ? "on" : "off", latencies.size(),
+                percent(counts[Ponderer.Outcome.HIT.ordinal()], total),
+                percent(counts[Ponderer.Outcome.CONTINUED.ordinal()], total),
+                percent(counts[Ponderer.Outcome.MISS.ordinal()] + counts[Ponderer.Outcome.OFF.ordinal()], total),
+                latencies.stream().mapToLong(Long::longValue).average().orElse(0) / 1e6,
+                latencies.isEmpty() ? 0 : latencies.get((int) (latencies.size() * 0.9)) / 1e6);
+    }
+
+    private static String choosePlayerMove(Search player, ChessGame game, Random random) {
+        // Rank all moves with a shallow search: the player usually plays one of the best moves.
+        final var pos = EngineMoveStrategy.toPosition(game);
+        final var limits = new SearchLimits(2, Duration.ofSeconds(1));
+        final var moves = new ArrayList<>(pos.legalMoves());
+        final var scores = new ArrayList<Integer>();
+        for (final var move : moves) {
+            final Position next = pos.copy();
+            next.play(move);
+            scores.add(-player.search(next, limits).score());
+        }
+        final List<String> ranked = moves.stream()
+                .sorted(Comparator.comparingInt((String m) -> scores.get(moves.indexOf(m))).reversed())
+                .toList();
+        final double r = random.nextDouble();
+        final int choice = r < 0.5 ? 0 : r < 0.8 ? 1 : random.nextInt(ranked.size());
+        return ranked.get(Math.min(choice, ranked.size() - 1));
+    }
+
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : 100.0 * count / total;
+    }
+
+    private static int intOption(String[] args, String prefix, int defaultValue) {
+        return Arrays.stream(args).filter(a -> a.startsWith(prefix))
+                .mapToInt(a -> Integer.parseInt(a.substring(prefix.length())))
+                .findFirst().orElse(defaultValue);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Measure time to readiness and resident memory (RSS) of the app for each startup mode,
+ * starting the app as a separate process.
+ * <p>
+ * Usage: <code>StartupBenchmark [--runs=3]</code>.
+ * Build the app first: <code>./mvnw -Pcds package -DskipTests</code> for JVM modes,
+ * and <code>./mvnw -Pnative native:compile -DskipTests</code> for the native image.
+ * Modes whose files cannot be found are skipped.
+ */
+public class StartupBenchmark {
+    private static final Path TARGET = Path.of("target");
+    private static final String JAR = "chess-ai-0.0.1-SNAPSHOT.jar";
+
+    public static void main(String[] args) throws Exception {
+        final int runs = Arrays.stream(args).filter(a -> a.startsWith("--runs="))
+                .mapToInt(a -> Integer.parseInt(a.substring("--runs=".length()))).findFirst().orElse(3);
+        final var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        final var extracted = TARGET.resolve("application");
+        final var cdsArchive = extracted.resolve("application.jsa");
+
+        final var modes = new LinkedHashMap<String, List<String>>();
+        if (Files.exists(TARGET.resolve(JAR))) {
+            modes.put("jar", List.of(java, "-jar", TARGET.resolve(JAR).toString()));
+        }
+        if (Files.exists(extracted.resolve(JAR))) {
+            modes.put("extracted", List.of(java, "-jar", extracted.resolve(JAR).toString()));
+            modes.put("aot", List.of(java, "-Dspring.aot.enabled=true", "-jar", extracted.resolve(JAR).toString()));
+        }
+        if (Files.exists(cdsArchive)) {
+            modes.put("cds+aot", List.of(java, "-XX:SharedArchiveFile=" + cdsArchive, "-Dspring.aot.enabled=true",
+                    "-jar", extracted.resolve(JAR).toString()));
+        }
+        if (Files.exists(TARGET.resolve("chess-ai"))) {
+            modes.put("native", List.of(TARGET.resolve("chess-ai").toString()));
+        }
+        if (modes.isEmpty()) {
+            throw new IllegalStateException("Nothing to start: build the app first");
+        }
+
+        final var redis = BenchmarkSupport.startRedis();
+        try {
+            System.out.printf("%-10s %6s %16s %12s%n", "mode", "runs", "ready (ms)", "RSS (MB)");
+            for (final var mode : modes.entrySet()) {
+                final var readyTimes = new ArrayList<Long>();
+                final var rss = new ArrayList<Long>();
+                for (int i = 0; i < runs; ++i) {
+                    final var result = start(mode.getValue(), redis.getHost(), redis.getBindPort());
+                    readyTimes.add(result[0]);
+                    rss.add(result[1]);
+                }
+                System.out.printf("%-10s %6d %16d %12d%n", mode.getKey(), runs, median(readyTimes), median(rss) / 1024);
+            }
+        } finally {
+            redis.stop();
+        }
+    }
+
+    private static long[] start(List<String> command, String redisHost, int redisPort) throws Exception {
+        final int port = freePort();
+        final var archive = Files.createTempFile("boards-", ".archive");
+        final var log = Files.createTempFile("startup-", ".log");
+        final var cmd = new ArrayList<>(command);
+        cmd.addAll(List.of(
+                "--server.port=" + port,
+                "--management.server.port=" + freePort(),
+                "--spring.docker.compose.enabled=false",
+                "--spring.data.redis.host=" + redisHost,
+                "--spring.data.redis.port=" + redisPort,
+                "--app.chess.archive.location=" + archive,
+                "--logging.level.root=WARN"));
+
+        // Readiness is checked the same way as the platform does: it includes the Redis health check.
+        final var client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(100)).build();
+        final var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/readyz")).build();
+        final long start = System.nanoTime();
+        final var process = new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("App failed to start: see " + log);
+                }
+                if (System.nanoTime() - start > Duration.ofMinutes(2).toNanos()) {
+                    throw new IllegalStateException("App is not ready after 2 minutes: see " + log);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException ignored) {
+                    // The server is not listening yet.
+                }
+                Thread.sleep(10);
+            }
+            final long ready = (System.nanoTime() - start) / 1_000_000;
+            return new long[]{ready, residentSetSizeKb(process.pid())};
+        } finally {
+            process.destroy();
+            process.waitFor();
+            Files.deleteIfExists(archive);
+            Files.deleteIfExists(log);
+        }
+    }
+
+    private static long residentSetSizeKb(long pid) throws IOException {
+        // This is only supported on Linux.
+        final var status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst().orElse(0);
+    }
+
+    private static int freePort() throws IOException {
+        try (final var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(List<Long> values) {
+        final var sorted = values.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+}
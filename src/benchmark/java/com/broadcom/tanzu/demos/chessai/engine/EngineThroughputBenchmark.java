@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure move generation (perft) and single-threaded search throughput, on a few well-known positions.
+ * Node counts are reported as secondary results (nodes per second).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineThroughputBenchmark {
+    @Param({
+            Position.STANDARD_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    })
+    String fen;
+
+    private Position pos;
+    private TranspositionTable table;
+    private SearchLimits limits;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup
+    public void setUp() {
+        pos = Position.fromFen(fen);
+        table = new TranspositionTable(16 << 20);
+        // Only the depth matters here: the time limit is never reached.
+        limits = new SearchLimits(6, Duration.ofHours(1));
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        final long nodes = Perft.perft(pos, 3);
+        counter.nodes += nodes;
+        return nodes;
+    }
+
+    @Benchmark
+    public SearchResult search(Nodes counter) {
+        // Each search starts from scratch, without reusing results from previous searches.
+        table.clear();
+        final var result = new Search(table).search(pos, limits);
+        counter.nodes += result.nodes();
+        return result;
+    }
+}
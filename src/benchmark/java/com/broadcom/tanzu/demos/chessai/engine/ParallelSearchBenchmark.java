@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import com.broadcom.tanzu.demos.chessai.BenchmarkMain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the time needed to search a few positions up to a fixed depth, depending on the number of threads.
+ * Run the main method of this class to get the speedup compared to a single thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ParallelSearchBenchmark {
+    private static final String[] POSITIONS = {
+            Position.STANDARD_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w KQ - 0 8",
+    };
+
+    @Param({"1", "2", "4", "8"})
+    int threads;
+
+    @Param({"8"})
+    int depth;
+
+    private TranspositionTable table;
+    private ParallelSearch search;
+    private SearchLimits limits;
+
+    @Setup
+    public void setUp() {
+        table = new TranspositionTable(64 << 20);
+        search = new ParallelSearch(table, threads - 1);
+        // Only the depth matters here: the time limit is never reached.
+        limits = new SearchLimits(depth, Duration.ofHours(1));
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTable() {
+        // Each iteration starts from scratch, without reusing results from previous iterations.
+        table.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public long timeToDepth() {
+        long nodes = 0;
+        for (final var fen : POSITIONS) {
+            nodes += search.search(Position.fromFen(fen), limits, threads).nodes();
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        final var options = BenchmarkMain.options(ParallelSearchBenchmark.class);
+        if (args.length > 0) {
+            options.param("threads", args);
+        }
+        final var results = new Runner(options.build()).run().stream()
+                .sorted(Comparator.comparingInt(r -> Integer.parseInt(r.getParams().getParam("threads"))))
+                .toList();
+
+        // Speedup is computed against the first result, which should be the single thread run.
+        System.out.println();
+        System.out.println("Threads  Time to depth (ms)  Speedup");
+        final double reference = results.getFirst().getPrimaryResult().getScore();
+        for (final RunResult result : results) {
+            final double score = result.getPrimaryResult().getScore();
+            System.out.printf(Locale.ROOT, "%7s  %18.1f  %7.2f%n",
+                    result.getParams().getParam("threads"), score, reference / score);
+        }
+    }
+}
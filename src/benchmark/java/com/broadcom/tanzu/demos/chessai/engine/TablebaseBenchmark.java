@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import com.broadcom.tanzu.demos.chessai.BenchmarkMain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the latency of endgame tablebase lookups, depending on the size of the page cache:
+ * positions are randomly selected from all tables, so that a small cache misses most of the time.
+ * The page cache hit ratio is displayed once each trial is done.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TablebaseBenchmark {
+    private static final int POSITIONS = 4096;
+
+    // 64 KB is enough for a few blocks only, while 2 MB holds all decompressed tables.
+    @Param({"65536", "2097152"})
+    long cacheSize;
+
+    private Tablebase tablebase;
+    private Position[] positions;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        final var file = Files.createTempFile("chess-", ".tb");
+        file.toFile().deleteOnExit();
+        try (final var in = getClass().getResourceAsStream("/tablebase/endgames.tb")) {
+            if (in == null) {
+                throw new IOException("Tablebase not found");
+            }
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        tablebase = Tablebase.open(file, cacheSize);
+
+        final var random = new SplittableRandom(42);
+        final var pieces = "QRP".toCharArray();
+        final var list = new ArrayList<Position>(POSITIONS);
+        while (list.size() < POSITIONS) {
+            final var pos = randomPosition(random, pieces[random.nextInt(pieces.length)]);
+            if (pos != null && tablebase.probe(pos) != Tablebase.NOT_FOUND) {
+                list.add(pos);
+            }
+        }
+        positions = list.toArray(Position[]::new);
+    }
+
+    @TearDown
+    public void tearDown() {
+        final long total = tablebase.pageHits() + tablebase.pageMisses();
+        System.out.printf(Locale.ROOT, "%nCache size: %d KB, page cache hit ratio: %.3f (%d lookups)%n",
+                cacheSize / 1024, total == 0 ? 0 : (double) tablebase.pageHits() / total, total);
+    }
+
+    @Benchmark
+    public int probe() {
+        final var pos = positions[next];
+        next = (next + 1) % positions.length;
+        return tablebase.probe(pos);
+    }
+
+    @Benchmark
+    public int bestMove() {
+        final var pos = positions[next];
+        next = (next + 1) % positions.length;
+        return tablebase.bestMove(pos);
+    }
+
+    private static Position randomPosition(SplittableRandom random, char piece) {
+        final var board = new char[64];
+        final int[] squares = {random.nextInt(64), random.nextInt(64), random.nextInt(64)};
+        if (squares[0] == squares[1] || squares[0] == squares[2] || squares[1] == squares[2]) {
+            return null;
+        }
+        final boolean white = random.nextBoolean();
+        board[squares[0]] = 'K';
+        board[squares[1]] = 'k';
+        board[squares[2]] = white ? piece : Character.toLowerCase(piece);
+        final var fen = new StringBuilder();
+        for (int rank = 7; rank >= 0; --rank) {
+            int empty = 0;
+            for (int file = 0; file < 8; ++file) {
+                final char c = board[rank * 8 + file];
+                if (c == 0) {
+                    ++empty;
+                    continue;
+                }
+                if (empty != 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(c);
+            }
+            if (empty != 0) {
+                fen.append(empty);
+            }
+            if (rank != 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(random.nextBoolean() ? " w - - 0 1" : " b - - 0 1");
+        try {
+            return Position.fromFen(fen.toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(BenchmarkMain.options(TablebaseBenchmark.class).build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@Component
+class AIMoveScheduler {
+    private final Logger logger = LoggerFactory.getLogger(AIMoveScheduler.class);
+    private final ThreadPoolTaskExecutor executor;
+    private final Set<String> pendingBoards = ConcurrentHashMap.newKeySet();
+    private final Timer waitTimer;
+    private final Timer executionTimer;
+    private final Counter rejected;
+    private final Counter deduplicated;
+    private final ObservationRegistry observationRegistry;
+
+    // AI moves are run using a bounded queue, with at most one pending (or running) AI move per board:
+    // since a board cannot take more than one slot in the queue, boards are served in turn.
+    // When the queue is full, AI moves are rejected right away so that the client knows the AI is busy.
+
+    AIMoveScheduler(ThreadPoolTaskExecutor taskExecutor, MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.executor = taskExecutor;
+        this.observationRegistry = observationRegistry;
+        this.waitTimer = Timer.builder("chess.ai.queue.wait")
+                .description("Time spent by AI moves waiting in the queue")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("chess.ai.execution")
+                .description("Time spent computing AI moves")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("chess.ai.rejected")
+                .description("AI moves rejected because the queue was full").register(meterRegistry);
+        this.deduplicated = Counter.builder("chess.ai.deduplicated")
+                .description("AI moves ignored because a move was already pending for the same board").register(meterRegistry);
+        Gauge.builder("chess.ai.queue.size", taskExecutor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Number of AI moves waiting in the queue").register(meterRegistry);
+        Gauge.builder("chess.ai.active", taskExecutor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Number of AI moves being computed").register(meterRegistry);
+    }
+
+    /**
+     * Schedule an AI move for a board, returning <code>false</code> if the AI is too busy.
+     * Nothing is scheduled if an AI move is already pending for this board.
+     * The task searches the AI move, then returns the work playing this move (if any).
+     */
+    boolean schedule(String boardId, Supplier<Runnable> task) {
+        if (!pendingBoards.add(boardId)) {
+            logger.atDebug().log("AI move already pending for board: {}", boardId);
+            deduplicated.increment();
+            return true;
+        }
+        // This observation covers the AI move from the queue to the end of the task:
+        // observations started by the task (such as the move search) are nested in this one.
+        final var observation = Observation.createNotStarted("chess.ai.move", observationRegistry)
+                .contextualName("ai-move")
+                .start();
+        final long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                observation.event(Observation.Event.of("dequeued"));
+                final var scope = observation.openScope();
+                try {
+                    final Runnable playMove;
+                    try {
+                        playMove = executionTimer.record(task);
+                    } finally {
+                        // The board is released as soon as the search is done, before the AI move is played:
+                        // the player may answer this move as soon as it is published.
+                        pendingBoards.remove(boardId);
+                    }
+                    if (playMove != null) {
+                        playMove.run();
+                    }
+                } catch (RuntimeException e) {
+                    observation.error(e);
+                    throw e;
+                } finally {
+                    scope.close();
+                    observation.stop();
+                }
+            });
+            return true;
+        } catch (TaskRejectedException e) {
+            observation.error(e);
+            observation.stop();
+            pendingBoards.remove(boardId);
+            rejected.increment();
+            logger.atWarn().log("Unable to schedule AI move for board {}: queue is full", boardId);
+            return false;
+        }
+    }
+}
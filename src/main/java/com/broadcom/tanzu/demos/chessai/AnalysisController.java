@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+@Controller
+@RegisterReflectionForBinding(GameAnalysis.class)
+class AnalysisController {
+    private final AnalysisStore store;
+
+    // Games are analyzed using an admin endpoint (see AnalysisEndpoint):
+    // players may only read the analysis of a game.
+
+    AnalysisController(AnalysisStore store) {
+        this.store = store;
+    }
+
+    @GetMapping("/chess/{boardId}/analysis")
+    ResponseEntity<GameAnalysis> analysis(@PathVariable String boardId) {
+        return ResponseEntity.of(store.load(boardId));
+    }
+}
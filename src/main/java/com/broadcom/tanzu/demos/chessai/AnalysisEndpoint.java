@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+@Endpoint(id = "analysis")
+@RegisterReflectionForBinding({AnalysisEndpoint.AnalysisJob.class, GameAnalyzer.AnalysisReport.class})
+class AnalysisEndpoint implements AutoCloseable {
+    private final Logger logger = LoggerFactory.getLogger(AnalysisEndpoint.class);
+    private final GameAnalyzer analyzer;
+    private final int maxIds;
+    private final ExecutorService executor;
+    private final AtomicReference<AnalysisJob> running = new AtomicReference<>();
+    private final Cache<String, AnalysisJob> jobs = Caffeine.newBuilder()
+            .maximumSize(100).expireAfterWrite(Duration.ofDays(1)).build();
+
+    // Analyzing games keeps all analysis threads busy for a while: this is an admin operation,
+    // which is only exposed on the management port (POST /actuator/analysis).
+    // Jobs run in the background, one at a time: the job status is read with GET /actuator/analysis/<job id>.
+
+    AnalysisEndpoint(GameAnalyzer analyzer,
+                     @Value("${app.chess.analysis.max-ids:1000}") int maxIds) {
+        this.analyzer = analyzer;
+        this.maxIds = maxIds;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            final var t = new Thread(r, "analysis-job");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Start analyzing games, either the boards with these ids (separated with commas) or all stored games.
+     */
+    @WriteOperation
+    WebEndpointResponse<AnalysisJob> start(@Nullable String ids) {
+        final var requested = ids == null ? List.<String>of() : Arrays.stream(ids.split(","))
+                .map(String::trim).filter(id -> !id.isEmpty()).distinct().toList();
+        if (requested.size() > maxIds) {
+            throw new InvalidEndpointRequestException("Too many board ids (max: " + maxIds + ")",
+                    "Too many board ids");
+        }
+        final var job = new AnalysisJob(UUID.randomUUID().toString(), Status.RUNNING, requested.size(), null, null);
+        if (!running.compareAndSet(null, job)) {
+            // Another job is running: this job is returned, so that its status can be checked.
+            return new WebEndpointResponse<>(running.get(), WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+        jobs.put(job.id(), job);
+        logger.atInfo().log("Starting analysis job {} ({} boards)",
+                job.id(), requested.isEmpty() ? "all" : requested.size());
+        executor.execute(() -> {
+            AnalysisJob done;
+            try {
+                final var report = requested.isEmpty() ? analyzer.analyzeAll() : analyzer.analyze(requested);
+                done = new AnalysisJob(job.id(), Status.DONE, job.requestedIds(), report, null);
+                logger.atInfo().log("Analysis job {} done: {}", job.id(), report);
+            } catch (Exception e) {
+                logger.atWarn().log("Analysis job {} failed", job.id(), e);
+                done = new AnalysisJob(job.id(), Status.FAILED, job.requestedIds(), null, e.getMessage());
+            }
+            jobs.put(job.id(), done);
+            running.set(null);
+        });
+        return new WebEndpointResponse<>(job, 202);
+    }
+
+    @ReadOperation
+    AnalysisJob job(@Selector String jobId) {
+        // A missing job is reported as a 404 error.
+        return jobs.getIfPresent(jobId);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    enum Status {
+        RUNNING, DONE, FAILED
+    }
+
+    /**
+     * Analysis job status: <code>requestedIds</code> is set to 0 when all stored games are analyzed.
+     */
+    record AnalysisJob(String id, Status status, int requestedIds, GameAnalyzer.AnalysisReport report, String error) {
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+class AnalysisStore {
+    private final Logger logger = LoggerFactory.getLogger(AnalysisStore.class);
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    // Game analyses are stored next to the board (chess::<id>::analysis) as JSON documents.
+    // An analysis can always be computed again from the board:
+    // it expires after a while, so that analyses of deleted or archived boards do not pile up.
+
+    AnalysisStore(StringRedisTemplate redis, ObjectMapper objectMapper,
+                  @Value("${app.chess.analysis.ttl:7d}") Duration ttl) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Store several game analyses at once, replacing existing ones.
+     */
+    void saveAll(List<GameAnalysis> analyses) {
+        if (analyses.isEmpty()) {
+            return;
+        }
+        final var expiration = Expiration.from(ttl);
+        redis.executePipelined((RedisCallback<Object>) conn -> {
+            for (final var analysis : analyses) {
+                conn.stringCommands().set(bytes(key(analysis.boardId())), bytes(toJson(analysis)),
+                        expiration, RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+        logger.atTrace().log("Stored {} game analyses", analyses.size());
+    }
+
+    Optional<GameAnalysis> load(String id) {
+        final var json = redis.opsForValue().get(key(id));
+        if (json == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(json, GameAnalysis.class));
+        } catch (JsonProcessingException e) {
+            logger.atWarn().log("Failed to read analysis for board: {}", id, e);
+            return Optional.empty();
+        }
+    }
+
+    private String toJson(GameAnalysis analysis) {
+        try {
+            return objectMapper.writeValueAsString(analysis);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String key(String id) {
+        return "chess::" + id + "::analysis";
+    }
+
+    private static byte[] bytes(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -2,6 +2,8 @@
 
 package com.broadcom.tanzu.demos.chessai;
 
+import io.github.wolfraam.chessgame.board.Side;
+import io.github.wolfraam.chessgame.result.ChessGameResultType;
 import org.springframework.aot.hint.MemberCategory;
 import org.springframework.aot.hint.annotation.RegisterReflection;
 import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
@@ -10,7 +12,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 @SpringBootApplication
 @RegisterReflectionForBinding(Board.class)
-@RegisterReflection(classes = {BoardFormatter.class, Board.class},
+// Templates call methods on these classes (including enum values) when rendering the board.
+@RegisterReflection(classes = {BoardFormatter.class, Board.class, Board.Error.class,
+        BoardView.class, BoardView.Rank.class, BoardView.SquareView.class, ChessGameResultType.class, Side.class},
         memberCategories = {MemberCategory.INVOKE_PUBLIC_METHODS})
 public class Application {
     public static void main(String[] args) {
@@ -16,16 +16,52 @@
 
 package com.broadcom.tanzu.demos.chessai;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 @Configuration(proxyBeanMethods = false)
+@EnableScheduling
 class AsyncConfig {
     @Bean
-    TaskExecutor taskExecutor() {
+    ThreadPoolTaskExecutor taskExecutor(@Value("${app.chess.ai.threads:2}") int threads,
+                                        @Value("${app.chess.ai.queue-capacity:100}") int queueCapacity) {
         // Leverage a TaskExecutor to compute AI moves asynchronously.
-        return new ThreadPoolTaskExecutor();
+        // The queue is bounded: once it is full, new tasks are rejected instead of waiting forever.
+        final var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ai-move-");
+        return executor;
     }
-}
\ No newline at end of file
+
+    @Bean
+    ThreadPoolTaskScheduler taskScheduler() {
+        // Background jobs (such as archiving boards) run on their own thread,
+        // instead of sharing the message broker scheduler.
+        final var scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
+    }
+
+    @Bean
+    TaskExecutor ioTaskExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        // Blocking I/O following an AI move (saving the board, notifying clients).
+        // When virtual threads are enabled, this work is moved off the AI thread pool, which is kept for CPU-bound
+        // move searches: otherwise it just runs on the same thread.
+        if (!virtualThreads) {
+            return new SyncTaskExecutor();
+        }
+        final var executor = new SimpleAsyncTaskExecutor("ai-io-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
@@ -6,12 +6,16 @@ record Board(
         String id,
         ChessGame game,
         String currentSquare,
-        Error error
+        Error error,
+        // Version of the stored board this instance was loaded from.
+        long version
 ) {
     enum Error {
         SERVER_ERROR,
         ILLEGAL_MOVE_FROM_AI,
         UNABLE_TO_GUESS_NEXT_MOVE,
-        CHECK_MATE
+        CHECK_MATE,
+        // Too many AI moves are pending: the player may try again later.
+        AI_BUSY
     }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Append-only archive of boards which were removed from Redis, stored in a local file.
+ */
+class BoardArchive implements Closeable {
+    private final Logger logger = LoggerFactory.getLogger(BoardArchive.class);
+    private final Path file;
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private final Counter writes;
+    private final Counter reads;
+    private volatile FileChannel channel;
+    private long end;
+
+    // Each record is made of its length, the board id and the compressed board state:
+    // a board archived more than once is read from its latest record.
+    // The index (board id -> record offset) is built when the archive is opened,
+    // without decompressing any record. A truncated record at the end of the file
+    // (such as after a crash) is ignored, and overwritten by the next record.
+
+    BoardArchive(Path file, MeterRegistry meterRegistry) throws IOException {
+        this.file = file;
+        this.writes = Counter.builder("chess.board.archive.writes")
+                .description("Boards moved from Redis to the archive").register(meterRegistry);
+        this.reads = Counter.builder("chess.board.archive.reads")
+                .description("Boards read from the archive").register(meterRegistry);
+        Gauge.builder("chess.board.archive.size", index, Map::size)
+                .description("Number of boards in the archive").register(meterRegistry);
+        if (Files.exists(file)) {
+            channel = open();
+            loadIndex();
+            logger.atInfo().log("Loaded {} archived boards from {}", index.size(), file);
+        }
+    }
+
+    /**
+     * Archived board state: this is the raw state stored in Redis, with packed moves.
+     */
+    record Entry(String id, long version, String currentSquare, String error, byte[] moves,
+                 String snapshot, String result) {
+    }
+
+    private FileChannel open() throws IOException {
+        final var parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void loadIndex() throws IOException {
+        final long size = channel.size();
+        final var header = ByteBuffer.allocate(Integer.BYTES);
+        long offset = 0;
+        while (offset + Integer.BYTES <= size) {
+            header.clear();
+            readFully(header, offset);
+            final int length = header.flip().getInt();
+            if (length <= 0 || offset + Integer.BYTES + length > size) {
+                break;
+            }
+            final var record = ByteBuffer.allocate(length);
+            readFully(record, offset + Integer.BYTES);
+            final var in = new DataInputStream(new ByteArrayInputStream(record.array()));
+            index.put(in.readUTF(), offset);
+            offset += Integer.BYTES + length;
+        }
+        if (offset < size) {
+            logger.atWarn().log("Removing truncated record at offset {} in board archive: {}", offset, file);
+            channel.truncate(offset);
+        }
+        end = offset;
+    }
+
+    boolean contains(String id) {
+        return index.containsKey(id);
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * Read the latest archived state of a board, returning <code>null</code> if this board is not archived.
+     */
+    Entry get(String id) throws IOException {
+        final var offset = index.get(id);
+        if (offset == null) {
+            return null;
+        }
+        final var header = ByteBuffer.allocate(Integer.BYTES);
+        readFully(header, offset);
+        final var record = ByteBuffer.allocate(header.flip().getInt());
+        readFully(record, offset + Integer.BYTES);
+
+        final var bytes = new ByteArrayInputStream(record.array());
+        if (!id.equals(new DataInputStream(bytes).readUTF())) {
+            throw new IOException("Corrupted board archive at offset " + offset + ": " + file);
+        }
+        try (final var in = new DataInputStream(new InflaterInputStream(bytes))) {
+            final var version = in.readLong();
+            final var currentSquare = readString(in);
+            final var error = readString(in);
+            final var moves = in.readNBytes(in.readInt());
+            final var snapshot = readString(in);
+            final var result = readString(in);
+            reads.increment();
+            return new Entry(id, version, currentSquare, error, moves, snapshot, result);
+        }
+    }
+
+    /**
+     * Append boards to the archive: these records are written to disk once this method returns.
+     */
+    synchronized void append(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (channel == null) {
+            channel = open();
+            end = channel.size();
+        }
+        final var offsets = new long[entries.size()];
+        final var buf = new ByteArrayOutputStream(256 * entries.size());
+        for (int i = 0; i < entries.size(); ++i) {
+            offsets[i] = end + buf.size();
+            final var record = toRecord(entries.get(i));
+            new DataOutputStream(buf).writeInt(record.length);
+            buf.write(record);
+        }
+        channel.write(ByteBuffer.wrap(buf.toByteArray()), end);
+        channel.force(false);
+        end += buf.size();
+
+        // Archived boards are only visible once they are safely stored.
+        for (int i = 0; i < entries.size(); ++i) {
+            index.put(entries.get(i).id(), offsets[i]);
+        }
+        writes.increment(entries.size());
+    }
+
+    private void readFully(ByteBuffer buf, long offset) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, offset + buf.position()) < 0) {
+                throw new EOFException("Unexpected end of board archive: " + file);
+            }
+        }
+    }
+
+    private static byte[] toRecord(Entry entry) throws IOException {
+        final var buf = new ByteArrayOutputStream(128 + entry.moves().length);
+        new DataOutputStream(buf).writeUTF(entry.id());
+        try (final var out = new DataOutputStream(new DeflaterOutputStream(buf))) {
+            out.writeLong(entry.version());
+            writeString(out, entry.currentSquare());
+            writeString(out, entry.error());
+            out.writeInt(entry.moves().length);
+            out.write(entry.moves());
+            writeString(out, entry.snapshot());
+            writeString(out, entry.result());
+        }
+        return buf.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        out.writeUTF(str == null ? "" : str);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final var str = in.readUTF();
+        return str.isEmpty() ? null : str;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+class BoardCache {
+    private final Logger logger = LoggerFactory.getLogger(BoardCache.class);
+    private final Cache<String, Board> boards;
+    private final boolean enabled;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter invalidations;
+
+    // Most of the time the same instance serves all requests for a board:
+    // this cache keeps recently used boards in memory, so that we don't need to replay moves.
+    // A cached board is only used if its version matches the version stored in Redis,
+    // and it is evicted as soon as another instance updates this board.
+
+    BoardCache(MeterRegistry meterRegistry,
+               @Value("${app.chess.cache.max-size:10000}") long maxSize,
+               @Value("${app.chess.cache.ttl:10m}") Duration ttl) {
+        this.enabled = maxSize > 0;
+        this.hits = Counter.builder("chess.board.cache").tag("result", "hit")
+                .description("Board cache lookups").register(meterRegistry);
+        this.misses = Counter.builder("chess.board.cache").tag("result", "miss")
+                .description("Board cache lookups").register(meterRegistry);
+        this.evictions = Counter.builder("chess.board.cache.evictions")
+                .description("Boards evicted from the cache because of size or TTL").register(meterRegistry);
+        this.invalidations = Counter.builder("chess.board.cache.invalidations")
+                .description("Boards evicted from the cache because they were updated elsewhere").register(meterRegistry);
+        this.boards = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .evictionListener((id, board, cause) -> evictions.increment())
+                .build();
+        Gauge.builder("chess.board.cache.size", boards, Cache::estimatedSize)
+                .description("Number of boards in the cache").register(meterRegistry);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get a copy of a cached board, if this board is cached with the same version.
+     */
+    Board get(String id, long version) {
+        final var board = boards.getIfPresent(id);
+        if (board == null || board.version() != version) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copy(board);
+    }
+
+    void put(Board board) {
+        // A board game is mutable: let's make sure a cached board is never shared.
+        boards.put(board.id(), copy(board));
+    }
+
+    void onBoardUpdated(String id, long version) {
+        // This board has been updated (maybe by another instance):
+        // evict any cached board with an older version.
+        boards.asMap().computeIfPresent(id, (k, board) -> {
+            if (board.version() >= version) {
+                return board;
+            }
+            logger.atTrace().log("Evicting board from cache: {}", id);
+            invalidations.increment();
+            return null;
+        });
+    }
+
+    private static Board copy(Board board) {
+        return new Board(board.id(), board.game().clone(), board.currentSquare(), board.error(), board.version());
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a board cannot be saved because it was updated since it was loaded.
+ */
+class BoardConflictException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    BoardConflictException(String boardId) {
+        super("Board was updated concurrently: " + boardId);
+    }
+}
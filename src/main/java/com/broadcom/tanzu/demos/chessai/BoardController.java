@@ -17,11 +17,18 @@
 package com.broadcom.tanzu.demos.chessai;
 
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import io.github.wolfraam.chessgame.ChessGame;
 import io.github.wolfraam.chessgame.board.PieceType;
 import io.github.wolfraam.chessgame.board.Side;
 import io.github.wolfraam.chessgame.board.Square;
 import io.github.wolfraam.chessgame.move.Move;
 import io.github.wolfraam.chessgame.notation.NotationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,30 +38,74 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Controller
 @RegisterReflectionForBinding({BoardController.ChessEvent.class, BoardController.ChessBestMove.class})
 class BoardController {
+    private static final MediaType TEXT_HTML = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
     private final Logger logger = LoggerFactory.getLogger(BoardController.class);
     //private final ChessEngine chessEngine;
     private final BoardRepository repo;
-    private final SimpMessagingTemplate stomp;
+    private final BoardEvents boardEvents;
     //private final ChatClient chatClient;
-    private final TaskExecutor taskExecutor;
-
-    BoardController(BoardRepository repo, SimpMessagingTemplate stomp, TaskExecutor taskExecutor) {
+    private final AIMoveScheduler aiMoveScheduler;
+    private final MoveStrategy moveStrategy;
+    private final TaskExecutor ioTaskExecutor;
+    private final BoardFragmentCache fragmentCache;
+    private final Ponderer ponderer;
+    private final BoardFormatter boardFormatter;
+    private final ObservationRegistry observationRegistry;
+    private final Timer clickMoveTimer;
+    private final Timer clickSelectTimer;
+    private final Timer clickIgnoreTimer;
+    private final Map<Board.Error, Counter> errorCounters = new EnumMap<>(Board.Error.class);
+
+    BoardController(BoardRepository repo, BoardEvents boardEvents, AIMoveScheduler aiMoveScheduler, MoveStrategy moveStrategy,
+                    TaskExecutor ioTaskExecutor, BoardFragmentCache fragmentCache, Ponderer ponderer,
+                    BoardFormatter boardFormatter, MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
         //this.chessEngine = chessEngine;
         this.repo = repo;
-        this.stomp = stomp;
+        this.boardEvents = boardEvents;
         //this.chatClient = chatClient;
-        this.taskExecutor = taskExecutor;
+        this.aiMoveScheduler = aiMoveScheduler;
+        this.moveStrategy = moveStrategy;
+        this.ioTaskExecutor = ioTaskExecutor;
+        this.fragmentCache = fragmentCache;
+        this.ponderer = ponderer;
+        this.boardFormatter = boardFormatter;
+        this.observationRegistry = observationRegistry;
+        this.clickMoveTimer = newClickTimer(meterRegistry, "move");
+        this.clickSelectTimer = newClickTimer(meterRegistry, "select");
+        this.clickIgnoreTimer = newClickTimer(meterRegistry, "ignore");
+        for (final var error : Board.Error.values()) {
+            errorCounters.put(error, Counter.builder("chess.board.errors")
+                    .description("Board errors shown to players")
+                    .tag("error", error.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    private static Timer newClickTimer(MeterRegistry meterRegistry, String outcome) {
+        // Clicks are tagged with their outcome: a move played by the player,
+        // a piece being selected, or a click which did not change the board.
+        return Timer.builder("chess.board.click")
+                .description("Time spent handling clicks on the board, including the rendering of the new board")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
     }
 
     /*@ModelAttribute("model")
@@ -76,10 +127,11 @@ class BoardController {
     }
 
     @GetMapping("/chess/{boardId}")
-    String board(@PathVariable String boardId, Model model, HttpServletResponse resp) {
+    String board(@PathVariable String boardId, Model model, HttpServletRequest req, HttpServletResponse resp) {
         logger.atDebug().log("Rendering board page: {}", boardId);
         final var board = repo.load(boardId).orElseThrow();
         model.addAttribute("board", board);
+        model.addAttribute("fragment", fragmentCache.render(board, req, resp).html());
 
         // Ask browser not to cache nor store the page.
         resp.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
@@ -88,30 +140,83 @@ class BoardController {
     }
 
     @GetMapping("/chess/{boardId}/board")
-    String boardFragment(@PathVariable String boardId, Model model, HttpServletResponse resp) {
+    ResponseEntity<String> boardFragment(@PathVariable String boardId, HttpServletRequest req, HttpServletResponse resp) {
         // This method is called by HTMX to update the board state.
         logger.atDebug().log("Rendering board fragment: {}", boardId);
-        final var board = repo.load(boardId).orElseThrow();
-        model.addAttribute("board", board);
 
-        // Ask browser not to cache nor store this fragment.
-        resp.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        // Most of the time the board has not changed since the last request:
+        // reading its version is enough to find the fragment we already rendered.
+        var fragment = fragmentCache.get(boardId, repo.loadVersion(boardId));
+        if (fragment == null) {
+            final var board = repo.load(boardId).orElseThrow();
+            fragment = fragmentCache.render(board, req, resp);
+        }
 
-        return "board-fragment";
+        // The browser must check that this fragment is still valid before using it:
+        // a 304 response is sent if the ETag is unchanged.
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(fragment.etag())
+                .contentType(TEXT_HTML)
+                .body(fragment.html());
     }
 
     @PostMapping("/chess/{boardId}/click/{square}")
-    String click(@PathVariable String boardId, @PathVariable("square") String squareStr, Model model, HttpServletResponse resp) {
+    ResponseEntity<String> click(@PathVariable String boardId, @PathVariable("square") String squareStr,
+                                 HttpServletRequest req, HttpServletResponse resp) {
         logger.atDebug().log("Rendering board after clicking on square {}: {}", squareStr, boardId);
+        final long start = System.nanoTime();
         final var square = Square.fromName(squareStr);
-        final var board = repo.load(boardId).orElseThrow();
-        model.addAttribute("board", board);
+        final var triggerAI = new AtomicBoolean();
+
+        // The board is saved only if nobody updated it since it was loaded (such as the AI
+        // playing its move, or a double click): in case of a conflict this click is applied again
+        // to the latest board state.
+        var board = repo.update(boardId, b -> {
+            triggerAI.set(false);
+            return onClick(b, square, triggerAI);
+        }).orElseThrow();
+
+        if (triggerAI.get()) {
+            // Now it's time for AI to play, starting from the board we just saved!
+            final var game = board.game().clone();
+            if (game.getLastMove() != null) {
+                ponderer.onMove(boardId, ChessGameUtils.toUci(game.getLastMove()));
+            }
+            final var scheduled = aiMoveScheduler.schedule(boardId, () -> playNextMoveForBlack(boardId, game));
+            if (!scheduled) {
+                // Let the player know that the AI is busy: clicking on the board will try again.
+                errorCounters.get(Board.Error.AI_BUSY).increment();
+                board = repo.update(boardId, b -> new Board(b.id(), b.game(), null, Board.Error.AI_BUSY, b.version()))
+                        .orElseThrow();
+            }
+        } else if (board.currentSquare() != null) {
+            // The player is about to move this piece: let's think about the replies.
+            ponderer.ponder(boardId, board.game(), board.currentSquare());
+        }
+
+        // Ask browser not to cache nor store this fragment.
+        final var response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .contentType(TEXT_HTML)
+                .body(fragmentCache.render(board, req, resp).html());
+        final var timer = triggerAI.get() ? clickMoveTimer : board.currentSquare() != null ? clickSelectTimer : clickIgnoreTimer;
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return response;
+    }
 
+    private Board onClick(Board board, Square square, AtomicBoolean triggerAI) {
         Board newBoard = null;
-        boolean triggerAI = false;
+        final var boardId = board.id();
 
         logger.atTrace().log("Board game result: {}={}", boardId, board.game().getGameResult());
 
+        if (board.error() == Board.Error.AI_BUSY && board.game().getSideToMove().equals(Side.BLACK)) {
+            // The AI was too busy to play: let's try again.
+            triggerAI.set(true);
+            return new Board(boardId, board.game(), null, null, board.version());
+        }
+
         // Main game loop: what happens when the player click on a square?
         if (board.game().getGameResultType() == null) {
             // OK, so the game is not done yet.
@@ -120,7 +225,7 @@ class BoardController {
                     // The player has clicked on a square, let's see if there is a White piece on it.
                     final var piece = board.game().getPiece(square);
                     if (piece != null && piece.side.equals(board.game().getSideToMove())) {
-                        newBoard = new Board(boardId, board.game(), square.name, null);
+                        newBoard = new Board(boardId, board.game(), square.name, null, board.version());
                     }
                 } else {
                     // At this point we know that the player has previously selected a piece:
@@ -139,115 +244,124 @@ class BoardController {
                         // This is a legal move, moving on!
                         logger.atInfo().log("Playing user move on board {}: {}", boardId, board.game().getNotation(NotationType.UCI, move));
                         board.game().playMove(move);
-                        triggerAI = true;
+                        triggerAI.set(true);
                     }
-                    newBoard = new Board(boardId, board.game(), null, null);
+                    newBoard = new Board(boardId, board.game(), null, null, board.version());
                 }
             }
         }
 
-        if (newBoard != null) {
-            logger.atDebug().log("Saving board: {}", newBoard.id());
-            repo.save(newBoard);
-            model.addAttribute("board", newBoard);
-        }
-
-        if (triggerAI) {
-            // Now it's time for AI to play!
-            taskExecutor.execute(() -> {
-                try {
-                    playNextMoveForBlack(boardId);
-                } catch (Exception e) {
-                    final Board.Error error;
-                    if (e instanceof AIMoveError) {
-                        error = ((AIMoveError) e).error;
-                    } else {
-                        error = Board.Error.SERVER_ERROR;
-                    }
-                    repo.save(new Board(board.id(), board.game(), null, error));
-                    refreshBoardUI(boardId);
-                    logger.atWarn().log("Failed to play next move for AI", e);
-                }
-            });
-        }
-
-        // Ask browser not to cache nor store this fragment.
-        resp.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
-
-        return "board-fragment";
+        return newBoard;
     }
 
-    private void playNextMoveForBlack(String boardId) {
-        System.out.println("MOVE");
-        /*final var board = repo.load(boardId).orElseThrow();
-        if (!board.game().getSideToMove().equals(Side.BLACK)) {
-            logger.atWarn().log("Skipping next move for black side using board: {}", boardId);
-            return;
-        }
+    private Runnable playNextMoveForBlack(String boardId, ChessGame game) {
+        // This method runs on the AI thread pool, which is dedicated to move searches:
+        // the board is then updated using the I/O executor (which may use virtual threads),
+        // once the scheduler is ready for the next AI move on this board.
+        final String bestMove;
+        try {
+            if (!game.getSideToMove().equals(Side.BLACK) || game.getGameResultType() != null) {
+                logger.atWarn().log("Skipping next move for black side using board: {}", boardId);
+                return null;
+            }
 
-        // Trigger the LLM: let's find out the next move to play.
-        logger.atDebug().log("Guessing next move using chess game tools for board: {}", boardId);
-        var resp = chatClient.prompt()
-                .user("""
-                        What is the next move to play in this chess game?
-                        Answer with one move only using UCI notation (source square-target square).
-                        Do not include anything else in your answer.
-                        """)
-                // Include additional tools that the LLM can use to identify the next move.
-                .tools(new ChessGameTools(board.game(), chessEngine))
-                .call().entity(ChessBestMove.class);
-        if (resp == null || resp.isNull()) {
-            logger.atDebug().log("Failed to get next move using chess game tools, trying with a FEN only for board: {}", boardId);
-            resp = chatClient.prompt()
-                    .user(p -> p.text("""
-                                    You're playing a chess game: you're playing Black.
-                                    Consider this FEN as the current board state (surrounded by a fen tag): <fen>{fen}</fen>
-                                    
-                                    Here are the board state and past moves using PGN (surrounded by a pgn tag):
-                                    <pgn>
-                                    {pgn}
-                                    </pgn>
-                                    
-                                    What is the next move to play?
-                                    Answer with one move only using UCI notation (source square-target square).
-                                    Do not include anything else in your answer.
-                                    """)
-                            .param("fen", board.game().getFen())
-                            .param("pgn", ChessGameUtils.getPGNData(board.game())))
-                    .call().entity(ChessBestMove.class);
-            if (resp == null || resp.isNull()) {
-                // The LLM failed to identify the next move: this may happen if the game is done,
-                // if the chess engine is unable to provide the next move, or if the LLM failed to
-                // use the tools and cannot identify the move by itself.
+            // Find out the next move to play: this may take a while.
+            logger.atDebug().log("Guessing next move for board: {}", boardId);
+            bestMove = Observation.createNotStarted("chess.ai.search", observationRegistry)
+                    .contextualName("ai-search")
+                    .observe(() -> moveStrategy.nextMove(game));
+            if (bestMove == null) {
                 logger.atDebug().log("No best move found for board {}", boardId);
                 throw new AIMoveError(Board.Error.UNABLE_TO_GUESS_NEXT_MOVE, null);
             }
-        }
-        logger.atInfo().log("Playing AI move on board {}: {}", boardId, resp.bestMove);
-        final Move move;
-        try {
-            // Find out if the LLM move does use UCI.
-            move = board.game().getMove(NotationType.UCI, resp.bestMove);
         } catch (Exception e) {
-            logger.atDebug().log("Unable to parse move from AI for board {}: {}", boardId, resp.bestMove);
-            throw new AIMoveError(Board.Error.ILLEGAL_MOVE_FROM_AI, e);
+            return () -> ioTaskExecutor.execute(() -> onAIMoveError(boardId, e));
         }
-        if (!board.game().isLegalMove(move)) {
-            // During late game (and without a chess engine) the LLM sometimes makes illegal moves.
-            logger.atDebug().log("Invalid move from AI for board {}: {}", boardId, resp.bestMove);
-            throw new AIMoveError(Board.Error.ILLEGAL_MOVE_FROM_AI, null);
+
+        final var fen = game.getFen();
+        // The board is updated on another thread: the parent observation is set explicitly.
+        final var playObservation = Observation.createNotStarted("chess.ai.play", observationRegistry)
+                .contextualName("ai-play")
+                .parentObservation(observationRegistry.getCurrentObservation());
+        return () -> ioTaskExecutor.execute(() -> {
+            try {
+                playObservation.observe(() -> playAIMove(boardId, fen, bestMove));
+            } catch (Exception e) {
+                onAIMoveError(boardId, e);
+            }
+        });
+    }
+
+    private void playAIMove(String boardId, String fen, String bestMove) {
+        // Great, the AI has a move to play: let's update the board,
+        // unless the board was updated in the meantime.
+        logger.atInfo().log("Playing AI move on board {}: {}", boardId, bestMove);
+        final var played = new AtomicBoolean();
+        final var board = repo.update(boardId, b -> {
+            played.set(false);
+            if (!b.game().getFen().equals(fen)) {
+                logger.atDebug().log("Board was updated while searching for next move, skipping AI move: {}", boardId);
+                return null;
+            }
+            final Move move;
+            try {
+                move = b.game().getMove(NotationType.UCI, bestMove);
+            } catch (Exception e) {
+                logger.atDebug().log("Unable to parse move from AI for board {}: {}", boardId, bestMove);
+                throw new AIMoveError(Board.Error.ILLEGAL_MOVE_FROM_AI, e);
+            }
+            if (!b.game().isLegalMove(move)) {
+                logger.atDebug().log("Invalid move from AI for board {}: {}", boardId, bestMove);
+                throw new AIMoveError(Board.Error.ILLEGAL_MOVE_FROM_AI, null);
+            }
+            b.game().playMove(move);
+            played.set(true);
+            return new Board(b.id(), b.game(), null, null, b.version());
+        });
+        if (played.get()) {
+            // Clients apply this move to the board they display: no need to fetch the whole board again.
+            boardEvents.send(boardId, newMoveEvent(board.orElseThrow()));
+            // The player is now thinking about the next move: so is the AI.
+            ponderer.ponder(boardId, board.orElseThrow().game(), null);
+        } else {
+            refreshBoardUI(boardId);
+        }
+    }
+
+    private ChessEvent newMoveEvent(Board board) {
+        final var game = board.game();
+        final var fen = game.getFen();
+        String check = null;
+        if (game.isKingAttacked()) {
+            for (final var sq : Square.values()) {
+                final var piece = game.getPiece(sq);
+                if (piece != null && piece.pieceType.equals(PieceType.KING) && piece.side.equals(game.getSideToMove())) {
+                    check = sq.name;
+                    break;
+                }
+            }
         }
+        final var result = game.getGameResultType();
+        return new ChessEvent("MOVE", ChessGameUtils.toUci(game.getLastMove()), fen, ChessGameUtils.getPly(fen),
+                result == null ? null : result.name(), check, boardFormatter.formatEndgame(game));
+    }
 
-        // Great, the AI has a move to play: let's update the board.
-        logger.atDebug().log("Playing next move from AI on board {}: {}", board.id(), resp.bestMove);
-        board.game().playMove(move);
-        repo.save(new Board(board.id(), board.game(), null, null));
-        refreshBoardUI(boardId);*/
+    private void onAIMoveError(String boardId, Exception e) {
+        final Board.Error error;
+        if (e instanceof AIMoveError) {
+            error = ((AIMoveError) e).error;
+        } else {
+            error = Board.Error.SERVER_ERROR;
+        }
+        errorCounters.get(error).increment();
+        repo.update(boardId, b -> new Board(b.id(), b.game(), null, error, b.version()));
+        refreshBoardUI(boardId);
+        logger.atWarn().log("Failed to play next move for AI", e);
     }
 
     private void refreshBoardUI(String boardId) {
         logger.atDebug().log("Refreshing board UI: {}", boardId);
-        stomp.convertAndSend("/topic/chess/" + boardId, new ChessEvent("UPDATE_BOARD"));
+        boardEvents.send(boardId, new ChessEvent("UPDATE_BOARD"));
     }
 
     @ExceptionHandler(NoSuchElementException.class)
@@ -255,7 +369,21 @@ class BoardController {
         return ResponseEntity.notFound().build();
     }
 
-    record ChessEvent(String type) {
+    @ExceptionHandler(BoardConflictException.class)
+    ResponseEntity<?> handleBoardConflictException(BoardConflictException e) {
+        // This board is being updated by other requests: the client may reload this board and try again.
+        logger.atDebug().log("Unable to update board", e);
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    /**
+     * Board event sent to clients: a <code>MOVE</code> event includes the move which was just played,
+     * with the resulting position and its tablebase outcome (if any). Other events only include their type.
+     */
+    record ChessEvent(String type, String move, String fen, int ply, String result, String check, String endgame) {
+        ChessEvent(String type) {
+            this(type, null, null, 0, null, null, null);
+        }
     }
 
     record ChessBestMove(@JsonPropertyDescription("""
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+interface BoardEvents {
+    // Board events are sent to STOMP clients subscribed to a board:
+    // these clients may be connected to any instance of this app.
+
+    /**
+     * Send an event to all clients subscribed to a board.
+     */
+    void send(String boardId, Object event);
+
+    enum Broadcast {
+        /**
+         * Events are only sent to clients connected to this instance: this requires sticky sessions.
+         */
+        LOCAL,
+        /**
+         * Events are relayed to other instances using Redis pub/sub.
+         */
+        REDIS
+    }
+}
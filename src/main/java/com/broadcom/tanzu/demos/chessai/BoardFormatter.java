@@ -15,23 +15,31 @@
  */
 package com.broadcom.tanzu.demos.chessai;
 
+import com.broadcom.tanzu.demos.chessai.engine.Position;
+import com.broadcom.tanzu.demos.chessai.engine.Tablebase;
+import io.github.wolfraam.chessgame.ChessGame;
 import io.github.wolfraam.chessgame.board.Piece;
 import io.github.wolfraam.chessgame.board.PieceType;
+import io.github.wolfraam.chessgame.board.Side;
 import io.github.wolfraam.chessgame.board.Square;
-import io.github.wolfraam.chessgame.move.Move;
-import io.github.wolfraam.chessgame.notation.NotationType;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 @Component
 class BoardFormatter {
+    private static final String FILES = "abcdefgh";
 
     private final Map<Piece, String> piece2String = new HashMap<>(12);
+    private final Tablebase tablebase;
+
+    BoardFormatter(Tablebase tablebase) {
+        this.tablebase = tablebase;
 
-    BoardFormatter() {
-        
         piece2String.put(Piece.WHITE_PAWN, "piece piece-w-pawn");
         piece2String.put(Piece.WHITE_KNIGHT, "piece piece-w-knight");
         piece2String.put(Piece.WHITE_BISHOP, "piece piece-w-bishop");
@@ -48,64 +56,98 @@ class BoardFormatter {
 
     }
 
-    public String formatPiece(Board board, int row, int col) {
-        return piece2String.get(board.game().getPiece((Square.fromCoordinates(col - 1, row - 1))));
-    }
+    public BoardView format(Board board) {
+        // Build the whole view in a single pass: the template only reads the resulting model.
+        final var game = board.game();
+        final var selected = board.currentSquare() == null ? null : Square.fromName(board.currentSquare());
 
-    public String formatSquare(int row, int col) {
-        return Square.fromCoordinates(col - 1, row - 1).name;
-    }
+        // Legal moves are only displayed for the selected square.
+        final var legalTargets = new HashSet<Square>();
+        if (selected != null) {
+            for (final var move : game.getLegalMoves()) {
+                if (move.from.equals(selected)) {
+                    legalTargets.add(move.to);
+                }
+            }
+        }
+
+        final var sideToMove = game.getSideToMove();
+        final var kingAttacked = game.isKingAttacked();
+        final var lastMove = game.getLastMove();
 
-    public boolean isLegalMove(Board board, int row, int col) {
-        if (board.currentSquare() == null) {
-            return false;
+        int pieces = 0;
+        final var ranks = new ArrayList<BoardView.Rank>(8);
+        for (int row = 8; row >= 1; --row) {
+            final var squares = new ArrayList<BoardView.SquareView>(8);
+            for (int col = 1; col <= 8; ++col) {
+                final var sq = Square.fromCoordinates(col - 1, row - 1);
+                final var piece = game.getPiece(sq);
+                final var light = (row + col) % 2 == 1;
+                if (piece != null) {
+                    ++pieces;
+                }
+
+                // Much better to have this code in Java rather than a Thymeleaf script for better readability!
+                final String background;
+                if (sq.equals(selected)) {
+                    background = "current";
+                } else if (kingAttacked && piece != null
+                        && piece.pieceType.equals(PieceType.KING) && piece.side.equals(sideToMove)) {
+                    background = "king-attacked";
+                } else if (lastMove != null && (sq.equals(lastMove.from) || sq.equals(lastMove.to))) {
+                    background = "last-move";
+                } else {
+                    background = light ? "light" : "dark";
+                }
+
+                squares.add(new BoardView.SquareView(sq.name, background,
+                        piece == null ? null : piece2String.get(piece),
+                        legalTargets.contains(sq),
+                        col == 1 ? String.valueOf(row) : null,
+                        row == 1 ? String.valueOf(FILES.charAt(col - 1)) : null,
+                        light ? "text-dark" : "text-light"));
+            }
+            ranks.add(new BoardView.Rank(row, List.copyOf(squares)));
         }
-        return board.game().isLegalMove(
-                new Move(Square.fromName(board.currentSquare()),
-                        Square.fromCoordinates(col - 1, row - 1)));
+
+        final var fen = game.getFen();
+        final var result = game.getGameResultType();
+        final var endgame = result == null && pieces <= Tablebase.MAX_PIECES ? formatEndgame(fen, sideToMove) : null;
+        return new BoardView(board.id(), List.copyOf(ranks), board.error(), result, sideToMove,
+                lastMove == null ? null : ChessGameUtils.toUci(lastMove),
+                game.getFullMoveCount(), ChessGameUtils.getPly(fen), fen, endgame);
     }
 
-    public boolean isKingAttacked(Board board, int row, int col) {
-        if (!board.game().isKingAttacked()) {
-            return false;
+    /**
+     * Format the outcome of a game with best play, or return <code>null</code>
+     * if this game is over or if its position is not covered by the tablebase.
+     */
+    String formatEndgame(ChessGame game) {
+        if (game.getGameResultType() != null) {
+            return null;
         }
-        final var piece = board.game().getPiece((Square.fromCoordinates(col - 1, row - 1)));
-        if (piece == null) {
-            return false;
+        final var fen = game.getFen();
+        final var placement = fen.substring(0, fen.indexOf(' '));
+        if (placement.chars().filter(Character::isLetter).count() > Tablebase.MAX_PIECES) {
+            return null;
         }
-        return piece.pieceType.equals(PieceType.KING)
-                && board.game().getSideToMove().equals(piece.side);
+        return formatEndgame(fen, game.getSideToMove());
     }
 
-    public String formatLastMove(Board board) {
-        if (board.game().getLastMove() == null) {
+    private String formatEndgame(String fen, Side sideToMove) {
+        // The tablebase tells how this game ends with best play.
+        final var outcome = tablebase.outcome(Position.fromFen(fen));
+        if (outcome == null) {
             return null;
         }
-        return board.game().getNotationList(NotationType.UCI).getLast();
-    }
-
-    public String formatMovesToCopy(Board board) {
-        return board.game().getFen();
-    }
-
-    public char formatColumnNumber(int col) {
-        return "abcdefgh".charAt(col - 1);
+        return switch (outcome.type()) {
+            case DRAW -> "Draw with best play";
+            case WIN -> formatMate(sideToMove, (outcome.plies() + 1) / 2);
+            case LOSS -> formatMate(sideToMove.flip(), outcome.plies() / 2);
+        };
     }
 
-    public String getSquareBackgroundClass(Board board, int row, int col) {
-        // Find out the CSS background class to use for a square.
-        // Much better to have this code in Java rather than a Thymeleaf script for better readability!
-        final var sq = Square.fromCoordinates(col - 1, row - 1);
-        if (sq.name.equals(board.currentSquare())) {
-            return "current";
-        }
-        if (isKingAttacked(board, row, col)) {
-            return "king-attacked";
-        }
-        final var lastMove = board.game().getLastMove();
-        if (lastMove != null && (sq.equals(lastMove.from) || sq.equals(lastMove.to))) {
-            return "last-move";
-        }
-        return col % 2 == 0 ? (row % 2 == 0 ? "dark" : "light") : (row % 2 == 1 ? "dark" : "light");
+    private static String formatMate(Side winner, int moves) {
+        return (winner == Side.WHITE ? "White" : "Black") + " mates in " + moves + (moves == 1 ? " move" : " moves");
     }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.wolfraam.chessgame.result.ChessGameResultType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.ISpringTemplateEngine;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Component
+class BoardFragmentCache {
+    private final ISpringTemplateEngine templateEngine;
+    private final BoardFormatter boardFormatter;
+    private final boolean enabled;
+    private final Cache<Key, Fragment> fragments;
+    private final Cache<String, Latest> latest;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer renderTimer;
+
+    // The board fragment is rendered again and again for the same board state: after each poll,
+    // after each board update notification, and when the board page is reloaded.
+    // Rendered fragments are kept in memory, keyed by everything the fragment shows.
+    // The latest fragment of each board is also indexed by board version, so that an unchanged
+    // board can be served without loading it.
+
+    BoardFragmentCache(ISpringTemplateEngine templateEngine, BoardFormatter boardFormatter, MeterRegistry meterRegistry,
+                       @Value("${app.chess.fragment-cache.max-size:16MB}") DataSize maxSize,
+                       @Value("${app.chess.cache.max-size:10000}") long maxBoards) {
+        this.templateEngine = templateEngine;
+        this.boardFormatter = boardFormatter;
+        this.enabled = maxSize.toBytes() > 0;
+        this.hits = Counter.builder("chess.board.fragment.cache").tag("result", "hit")
+                .description("Board fragment cache lookups").register(meterRegistry);
+        this.misses = Counter.builder("chess.board.fragment.cache").tag("result", "miss")
+                .description("Board fragment cache lookups").register(meterRegistry);
+        this.renderTimer = Timer.builder("chess.board.fragment.render")
+                .description("Time spent rendering board fragments which were not found in the cache")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        final var evictions = Counter.builder("chess.board.fragment.cache.evictions")
+                .description("Board fragments evicted from the cache").register(meterRegistry);
+        this.fragments = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                // Rendered HTML includes a few non-Latin-1 characters: assume 2 bytes per character.
+                .weigher((Key key, Fragment fragment) -> 2 * fragment.html().length())
+                .evictionListener((key, fragment, cause) -> evictions.increment())
+                .build();
+        this.latest = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, maxBoards))
+                .build();
+
+        Gauge.builder("chess.board.fragment.cache.size", fragments, Cache::estimatedSize)
+                .description("Number of board fragments in the cache").register(meterRegistry);
+        Gauge.builder("chess.board.fragment.cache.hit.ratio", this, BoardFragmentCache::hitRatio)
+                .description("Ratio of board fragments served from the cache").register(meterRegistry);
+    }
+
+    private double hitRatio() {
+        final double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    /**
+     * Get the latest rendered fragment for a board, if this board was not updated since then.
+     * A board version is only set by storage layouts supporting versions: <code>null</code> is returned otherwise.
+     */
+    Fragment get(String boardId, long version) {
+        if (!enabled || version <= 0) {
+            return null;
+        }
+        final var entry = latest.getIfPresent(boardId);
+        if (entry == null || entry.version() != version) {
+            return null;
+        }
+        final var fragment = fragments.getIfPresent(entry.key());
+        if (fragment != null) {
+            hits.increment();
+        }
+        return fragment;
+    }
+
+    /**
+     * Render the fragment for a board, unless a fragment was rendered for the same board state.
+     */
+    Fragment render(Board board, HttpServletRequest req, HttpServletResponse resp) {
+        final var game = board.game();
+        final var lastMove = game.getLastMove();
+        final var key = new Key(board.id(), game.getFen(), board.currentSquare(), board.error(),
+                lastMove == null ? null : ChessGameUtils.toUci(lastMove), game.getGameResultType());
+        if (!enabled) {
+            misses.increment();
+            return newFragment(board, req, resp);
+        }
+
+        var fragment = fragments.getIfPresent(key);
+        if (fragment == null) {
+            misses.increment();
+            fragment = newFragment(board, req, resp);
+            fragments.put(key, fragment);
+        } else {
+            hits.increment();
+        }
+        if (board.version() > 0) {
+            latest.put(board.id(), new Latest(board.version(), key));
+        }
+        return fragment;
+    }
+
+    private Fragment newFragment(Board board, HttpServletRequest req, HttpServletResponse resp) {
+        final long start = System.nanoTime();
+        final var exchange = JakartaServletWebApplication.buildApplication(req.getServletContext())
+                .buildExchange(req, resp);
+        final var ctx = new WebContext(exchange, req.getLocale(),
+                Map.of("board", board, "view", boardFormatter.format(board)));
+        final var html = templateEngine.process("board-fragment", ctx);
+        final var etag = "\"" + DigestUtils.md5DigestAsHex(html.getBytes(StandardCharsets.UTF_8)) + "\"";
+        renderTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Fragment(html, etag);
+    }
+
+    record Fragment(String html, String etag) {
+    }
+
+    private record Key(String boardId, String fen, String currentSquare, Board.Error error,
+                       String lastMove, ChessGameResultType result) {
+    }
+
+    private record Latest(long version, Key key) {
+    }
+}
@@ -18,75 +18,279 @@ package com.broadcom.tanzu.demos.chessai;
 
 import io.github.wolfraam.chessgame.ChessGame;
 import io.github.wolfraam.chessgame.notation.NotationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 @Repository
 class BoardRepository {
     private final Logger logger = LoggerFactory.getLogger(BoardRepository.class);
-    private final StringRedisTemplate redis;
+    private final BoardStorage storage;
+    private final BoardCache cache;
     private final String initialFen;
+    private final boolean standardGame;
+    private final int snapshotInterval;
+    private final int updateAttempts;
+    private final Timer saveTimer;
+    private final Timer loadTimer;
+    private final Timer versionTimer;
+    private final Counter conflictCounter;
+    private final DistributionSummary fullReplays;
+    private final DistributionSummary snapshotReplays;
 
     // This is a core service of the app, as it enables to load / save a board state from a board id.
     // Using this service we rely on Redis to store anything we need, which makes this app stateless.
 
-    BoardRepository(StringRedisTemplate redis,
-                    @Value("${app.chess.initial:rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}") String initialFen) {
-        this.redis = redis;
+    BoardRepository(BoardStorage storage, BoardCache cache, MeterRegistry meterRegistry,
+                    @Value("${app.chess.initial:rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}") String initialFen,
+                    @Value("${app.chess.storage.snapshot-interval:20}") int snapshotInterval,
+                    @Value("${app.chess.storage.update-attempts:3}") int updateAttempts) {
+        this.storage = storage;
+        // Board versions are not supported by the legacy layout.
+        this.cache = storage.layout() != BoardStorage.Layout.KEYS && cache.isEnabled() ? cache : null;
         this.initialFen = initialFen;
+        this.standardGame = new ChessGame(initialFen).getInitialFen().equals(ChessGame.STANDARD_INITIAL_FEN);
+        // Snapshots are not supported by the legacy layout.
+        this.snapshotInterval = storage.layout() != BoardStorage.Layout.KEYS ? snapshotInterval : 0;
+        this.updateAttempts = Math.max(1, updateAttempts);
+
+        // Record latency for each storage operation, tagged with the storage layout in use
+        // so that layouts can be compared.
+        final var layout = storage.layout().name().toLowerCase(Locale.ROOT);
+        this.saveTimer = newStorageTimer(meterRegistry, "save", layout);
+        this.loadTimer = newStorageTimer(meterRegistry, "load", layout);
+        this.versionTimer = newStorageTimer(meterRegistry, "version", layout);
+        this.conflictCounter = Counter.builder("chess.board.conflicts")
+                .description("Number of board updates rejected because of a concurrent update")
+                .register(meterRegistry);
+        // Loading a board replays its moves: this is where long games cost the most.
+        this.fullReplays = newReplaySummary(meterRegistry, "start");
+        this.snapshotReplays = newReplaySummary(meterRegistry, "snapshot");
+    }
+
+    private static DistributionSummary newReplaySummary(MeterRegistry meterRegistry, String from) {
+        return DistributionSummary.builder("chess.board.replay")
+                .description("Number of moves replayed when loading a board")
+                .baseUnit("moves")
+                .tag("from", from)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
     }
 
-    void save(Board board) {
+    private static Timer newStorageTimer(MeterRegistry meterRegistry, String operation, String layout) {
+        return Timer.builder("chess.board.storage")
+                .description("Time spent saving or loading a board")
+                .tags("operation", operation, "layout", layout)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Save a board, returning the saved board with its new version.
+     * A {@link BoardConflictException} is thrown if this board was updated since it was loaded.
+     */
+    Board save(Board board) {
         logger.atTrace().log("Saving board: {}", board);
-        if (board.currentSquare() == null) {
-            redis.delete("chess::" + board.id() + "::current");
-        } else {
-            redis.opsForValue().set("chess::" + board.id() + "::current", board.currentSquare());
+        final var stored = toStoredBoard(board);
+        final long version;
+        try {
+            version = saveTimer.record(() -> storage.write(board.id(), stored));
+        } catch (BoardConflictException e) {
+            conflictCounter.increment();
+            throw e;
         }
-        if (board.error() == null) {
-            redis.delete("chess::" + board.id() + "::error");
-        } else {
-            redis.opsForValue().set("chess::" + board.id() + "::error", board.error().name());
+        final var saved = new Board(board.id(), board.game(), board.currentSquare(), board.error(), version);
+        if (cache != null) {
+            cache.put(saved);
+        }
+        return saved;
+    }
+
+    /**
+     * Save games as new boards, returning the ids of these boards.
+     * Games which do not start from the initial position are skipped (<code>null</code> ids).
+     */
+    List<String> saveAll(List<ChessGame> games) {
+        final var boards = new LinkedHashMap<String, BoardStorage.StoredBoard>(games.size() * 2);
+        final var ids = new ArrayList<String>(games.size());
+        for (final var game : games) {
+            if (!game.getInitialFen().equals(initialFen)) {
+                ids.add(null);
+                continue;
+            }
+            final var id = UUID.randomUUID().toString();
+            boards.put(id, toStoredBoard(new Board(id, game, null, null, 0)));
+            ids.add(id);
+        }
+        saveTimer.record(() -> storage.writeAll(boards));
+        return ids;
+    }
+
+    private BoardStorage.StoredBoard toStoredBoard(Board board) {
+        final var game = board.game();
+        // A game restored from a snapshot does not include moves played before this snapshot.
+        final var firstPly = standardGame ? ChessGameUtils.getPly(game.getInitialFen()) : 0;
+        // The game result is stored so that finished games can be found without replaying moves.
+        final var result = game.getGameResultType();
+        // Moves are converted to UCI notation on demand:
+        // most of the time only the last move is actually written.
+        return new BoardStorage.StoredBoard(
+                board.currentSquare(),
+                board.error() == null ? null : board.error().name(),
+                ChessGameUtils.getUciMoves(game),
+                firstPly, newSnapshot(game, firstPly),
+                board.version(),
+                result == null ? null : result.name());
+    }
+
+    /**
+     * Apply an update to the latest board state and save it: the update function may return
+     * <code>null</code> if there is nothing to save.
+     * The update is applied again to a fresh board state if this board was concurrently updated,
+     * so this function must not have side effects.
+     */
+    Optional<Board> update(String id, UnaryOperator<Board> update) {
+        for (int attempt = 1; ; ++attempt) {
+            final var board = load(id);
+            if (board.isEmpty()) {
+                return Optional.empty();
+            }
+            final var newBoard = update.apply(board.get());
+            if (newBoard == null) {
+                return board;
+            }
+            try {
+                return Optional.of(save(newBoard));
+            } catch (BoardConflictException e) {
+                // Another request (a user click or an AI move) updated this board in the meantime:
+                // no lock is taken, we just start over from the latest board state.
+                if (attempt >= updateAttempts) {
+                    throw e;
+                }
+                logger.atDebug().log("Retrying board update after a conflict (attempt {}): {}", attempt, id);
+            }
+        }
+    }
+
+    private BoardStorage.Snapshot newSnapshot(ChessGame game, int firstPly) {
+        // Snapshots are taken right before a pawn move or a capture (which resets the half-move clock):
+        // positions played before such a move cannot be repeated anymore, so restoring a game
+        // from this snapshot keeps the history we need to detect a threefold repetition.
+        // The 50-move rule is also covered, since the half-move clock is part of the FEN.
+        final var moves = game.getMoves();
+        if (!standardGame || snapshotInterval <= 0 || moves.isEmpty()
+                || ChessGameUtils.getHalfMoveClock(game.getFen()) != 0) {
+            return null;
         }
-        redis.delete("chess::" + board.id() + "::moves");
-        final var moves = board.game().getNotationList(NotationType.UCI);
-        if (!moves.isEmpty()) {
-            redis.opsForList().rightPushAll("chess::" + board.id() + "::moves", moves);
+        final var ply = firstPly + moves.size() - 1;
+        if (ply - firstPly < snapshotInterval) {
+            return null;
         }
+        logger.atTrace().log("Taking snapshot at ply {}", ply);
+        return new BoardStorage.Snapshot(ply, game.getSubset(moves.size() - 1).getFen());
     }
 
     Board newInstance() {
         final var id = UUID.randomUUID().toString();
         logger.atTrace().log("Creating new board: {}", id);
-        final var board = new Board(id, new ChessGame(), null, null);
-        save(board);
-        return board;
+        return save(new Board(id, new ChessGame(), null, null, 0));
+    }
+
+    /**
+     * Read the version of a board without loading it: 0 is returned if this board cannot be found,
+     * or if board versions are not supported by the storage layout.
+     */
+    long loadVersion(String id) {
+        return versionTimer.record(() -> storage.readVersion(id));
     }
 
     Optional<Board> load(String id) {
         logger.atTrace().log("Loading board: {}", id);
-        final var current = redis.opsForValue().get("chess::" + id + "::current");
-        final var errorStr = redis.opsForValue().get("chess::" + id + "::error");
-        final var movesStr = redis.opsForList().range("chess::" + id + "::moves", 0, -1);
+        if (cache != null) {
+            // Reading a board version is much cheaper than loading a board.
+            final var cached = cache.get(id, versionTimer.record(() -> storage.readVersion(id)));
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+        final var stored = loadTimer.record(() -> storage.read(id));
+        if (stored == null) {
+            return Optional.empty();
+        }
         try {
-            final var game = new ChessGame(initialFen);
-            if (movesStr != null && game.getInitialFen().equals(ChessGame.STANDARD_INITIAL_FEN)) {
-                // This is the core mechanic of this class:
-                // we have loaded all the moves from Redis, let's play these moves
-                // with a brand-new board instance to get back to the same state.
-                game.playMoves(NotationType.UCI, movesStr);
+            final var board = toBoard(id, stored);
+            if (cache != null) {
+                cache.put(board);
             }
-
-            return Optional.of(new Board(id, game, current, errorStr == null ? null : Board.Error.valueOf(errorStr)));
+            return Optional.of(board);
         } catch (Exception e) {
             logger.atWarn().log("Failed to load board: {}", id, e);
             return Optional.empty();
         }
     }
+
+    /**
+     * Iterate over all stored boards, which are read in batches:
+     * the board cache is not used, and boards which cannot be loaded are skipped.
+     */
+    void forEach(int batchSize, Consumer<Board> consumer) {
+        storage.scan(batchSize, ids -> loadAll(ids).forEach(consumer));
+    }
+
+    /**
+     * Load several boards at once, including all moves (even if a snapshot is stored):
+     * the board cache is not used, and boards which cannot be loaded are skipped.
+     */
+    List<Board> loadAll(List<String> ids) {
+        final var stored = loadTimer.record(() -> storage.readAll(ids));
+        final var boards = new ArrayList<Board>(ids.size());
+        for (int i = 0; i < ids.size(); ++i) {
+            if (stored.get(i) == null) {
+                continue;
+            }
+            try {
+                boards.add(toBoard(ids.get(i), stored.get(i)));
+            } catch (Exception e) {
+                logger.atWarn().log("Failed to load board: {}", ids.get(i), e);
+            }
+        }
+        return boards;
+    }
+
+    private Board toBoard(String id, BoardStorage.StoredBoard stored) {
+        final ChessGame game;
+        final var snapshot = stored.snapshot();
+        if (standardGame && snapshot != null && snapshot.ply() == stored.firstPly()) {
+            // Restore the game from the latest snapshot: we only need to replay moves played since then.
+            game = new ChessGame(snapshot.fen());
+            game.playMoves(NotationType.UCI, stored.moves());
+            snapshotReplays.record(stored.moves().size());
+        } else if (stored.firstPly() == 0) {
+            // This is the core mechanic of this class:
+            // we have loaded all the moves from Redis, let's play these moves
+            // with a brand-new board instance to get back to the same state.
+            game = new ChessGame(initialFen);
+            game.playMoves(NotationType.UCI, stored.moves());
+            fullReplays.record(stored.moves().size());
+        } else {
+            throw new IllegalStateException("Missing moves before ply " + stored.firstPly());
+        }
+
+        final var errorStr = stored.error();
+        return new Board(id, game, stored.currentSquare(), errorStr == null ? null : Board.Error.valueOf(errorStr), stored.version());
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+interface BoardStorage {
+    // A storage is only responsible for moving raw board state in and out of Redis:
+    // rebuilding a ChessGame instance from the stored moves is done by BoardRepository.
+
+    Layout layout();
+
+    /**
+     * Write a board state, returning the new version of this board.
+     * The board version is the version this board was loaded from: a
+     * {@link BoardConflictException} is thrown if the stored board has a different version.
+     */
+    long write(String id, StoredBoard board);
+
+    /**
+     * Read a board state, returning <code>null</code> if this board cannot be found.
+     * Moves played before the latest snapshot may be left out.
+     */
+    StoredBoard read(String id);
+
+    /**
+     * Read the version of a board, without reading the board itself.
+     */
+    long readVersion(String id);
+
+    /**
+     * Read several board states at once, including all moves (snapshots are left out):
+     * <code>null</code> is returned for boards which cannot be found.
+     */
+    List<StoredBoard> readAll(List<String> ids);
+
+    /**
+     * Write several new boards at once.
+     */
+    default void writeAll(Map<String, StoredBoard> boards) {
+        boards.forEach(this::write);
+    }
+
+    /**
+     * Iterate over the ids of stored boards, in batches of up to <code>batchSize</code> ids.
+     * A board may be returned more than once if boards are written while scanning.
+     */
+    void scan(int batchSize, Consumer<List<String>> consumer);
+
+    /**
+     * Scan Redis keys, calling the consumer with batches of board ids (<code>null</code> ids are skipped).
+     */
+    static void scan(StringRedisTemplate redis, ScanOptions options, Function<String, String> toId,
+                     int batchSize, Consumer<List<String>> consumer) {
+        final var ids = new ArrayList<String>(batchSize);
+        try (final var cursor = redis.scan(options)) {
+            while (cursor.hasNext()) {
+                final var id = toId.apply(cursor.next());
+                if (id != null) {
+                    ids.add(id);
+                }
+                if (ids.size() >= batchSize) {
+                    consumer.accept(List.copyOf(ids));
+                    ids.clear();
+                }
+            }
+        }
+        if (!ids.isEmpty()) {
+            consumer.accept(List.copyOf(ids));
+        }
+    }
+
+    enum Layout {
+        /**
+         * One Redis key per board field: this is the original layout, which requires several round trips.
+         */
+        KEYS,
+        /**
+         * A single Redis hash per board, read and written with one command.
+         */
+        HASH,
+        /**
+         * Same as the hash layout, with moves packed as 16-bit values:
+         * finished or idle boards are moved to a local archive.
+         */
+        PACKED
+    }
+
+    /**
+     * Stored board state: <code>moves</code> only includes moves starting at <code>firstPly</code>.
+     * When writing a board, a non-null snapshot replaces the stored one.
+     * The game result is only set once the game is over: it may not be stored by all layouts.
+     */
+    record StoredBoard(String currentSquare, String error, List<String> moves, int firstPly,
+                       Snapshot snapshot, long version, String result) {
+    }
+
+    /**
+     * Board position (FEN) once the first <code>ply</code> moves have been played.
+     */
+    record Snapshot(int ply, String fen) {
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+class BoardSubscriptions {
+    /**
+     * STOMP destination prefix for board events: the board id follows this prefix.
+     */
+    static final String TOPIC_PREFIX = "/topic/chess/";
+
+    private final Logger logger = LoggerFactory.getLogger(BoardSubscriptions.class);
+    // Subscriptions of each STOMP session: subscription id -> board id.
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    // Number of local subscribers for each board.
+    private final Map<String, Integer> boards = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    // Keep track of STOMP clients connected to this instance, for each board:
+    // a board is live as long as a client is connected, and this client does not need to poll the board.
+
+    BoardSubscriptions(MeterRegistry meterRegistry) {
+        Gauge.builder("chess.boards.live", boards, Map::size)
+                .description("Number of boards with clients connected to this instance").register(meterRegistry);
+        Gauge.builder("chess.boards.subscribers", subscribers, AtomicInteger::get)
+                .description("Number of clients connected to this instance, listening to board events").register(meterRegistry);
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    boolean hasSubscribers(String boardId) {
+        return boards.containsKey(boardId);
+    }
+
+    @EventListener
+    void onSubscribe(SessionSubscribeEvent e) {
+        final var headers = StompHeaderAccessor.wrap(e.getMessage());
+        final var destination = headers.getDestination();
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)) {
+            return;
+        }
+        final var boardId = destination.substring(TOPIC_PREFIX.length());
+        sessions.computeIfAbsent(headers.getSessionId(), k -> new ConcurrentHashMap<>())
+                .put(headers.getSubscriptionId(), boardId);
+        subscribers.incrementAndGet();
+        boards.compute(boardId, (id, count) -> {
+            if (count == null) {
+                logger.atDebug().log("First subscriber for board: {}", id);
+                listeners.forEach(l -> l.onFirstSubscriber(id));
+                return 1;
+            }
+            return count + 1;
+        });
+    }
+
+    @EventListener
+    void onUnsubscribe(SessionUnsubscribeEvent e) {
+        final var headers = StompHeaderAccessor.wrap(e.getMessage());
+        final var subscriptions = sessions.get(headers.getSessionId());
+        if (subscriptions != null) {
+            final var boardId = subscriptions.remove(headers.getSubscriptionId());
+            if (boardId != null) {
+                removeSubscriber(boardId);
+            }
+        }
+    }
+
+    @EventListener
+    void onDisconnect(SessionDisconnectEvent e) {
+        // This event may be received more than once for the same session.
+        final var subscriptions = sessions.remove(e.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::removeSubscriber);
+        }
+    }
+
+    private void removeSubscriber(String boardId) {
+        subscribers.decrementAndGet();
+        boards.computeIfPresent(boardId, (id, count) -> {
+            if (count > 1) {
+                return count - 1;
+            }
+            logger.atDebug().log("No more subscribers for board: {}", id);
+            listeners.forEach(l -> l.onLastSubscriber(id));
+            return null;
+        });
+    }
+
+    /**
+     * Listener notified when a board gets its first subscriber, or loses its last subscriber.
+     * Notifications are sent in order for a given board: listeners must not block.
+     */
+    interface Listener {
+        void onFirstSubscriber(String boardId);
+
+        void onLastSubscriber(String boardId);
+    }
+}
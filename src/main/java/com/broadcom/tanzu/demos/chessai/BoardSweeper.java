@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+
+@Component
+class BoardSweeper {
+    private final Logger logger = LoggerFactory.getLogger(BoardSweeper.class);
+    private final PackedBoardStorage storage;
+    private final BoardArchive archive;
+    private final Duration finishedAfter;
+    private final Duration idleAfter;
+    private final int batchSize;
+
+    // Boards are kept in Redis forever, unless they are moved to the archive:
+    // finished games are archived a while after their last update (the final move),
+    // other games are archived once they have not been updated for much longer.
+    // Reading a board does not count as activity: an archived board is restored on its next read.
+    // A board is only removed from Redis once it is safely stored in the archive,
+    // and if it was not updated in the meantime.
+
+    BoardSweeper(BoardStorage storage, BoardArchive archive,
+                 @Value("${app.chess.archive.enabled:false}") boolean enabled,
+                 @Value("${app.chess.archive.finished-after:1h}") Duration finishedAfter,
+                 @Value("${app.chess.archive.idle-after:7d}") Duration idleAfter,
+                 @Value("${app.chess.archive.batch-size:100}") int batchSize) {
+        // Only the packed layout supports archiving boards.
+        this.storage = enabled && storage instanceof PackedBoardStorage packed ? packed : null;
+        this.archive = archive;
+        this.finishedAfter = finishedAfter;
+        this.idleAfter = idleAfter;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${app.chess.archive.sweep-interval:5m}",
+            fixedDelayString = "${app.chess.archive.sweep-interval:5m}")
+    void sweep() {
+        if (storage == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        int archived = 0;
+        try {
+            archived += sweep(true, now - finishedAfter.toMillis());
+            archived += sweep(false, now - idleAfter.toMillis());
+        } catch (Exception e) {
+            logger.atWarn().log("Failed to archive boards", e);
+        }
+        if (archived != 0) {
+            logger.atInfo().log("Archived {} boards (archive size: {})", archived, archive.size());
+        }
+    }
+
+    private int sweep(boolean finished, long updatedBefore) throws IOException {
+        int archived = 0;
+        while (true) {
+            final var ids = storage.findIdleBoards(finished, updatedBefore, batchSize);
+            final var entries = new ArrayList<BoardArchive.Entry>(ids.size());
+            for (final var id : ids) {
+                final var entry = storage.readEntry(id);
+                if (entry == null) {
+                    // This board is gone: just clean up the activity index.
+                    storage.delete(id, 0);
+                } else {
+                    entries.add(entry);
+                }
+            }
+            archive.append(entries);
+            for (final var entry : entries) {
+                if (storage.delete(entry.id(), entry.version())) {
+                    archived += 1;
+                } else {
+                    logger.atDebug().log("Board updated while being archived: {}", entry.id());
+                }
+            }
+            if (ids.size() < batchSize) {
+                return archived;
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import io.github.wolfraam.chessgame.board.Side;
+import io.github.wolfraam.chessgame.result.ChessGameResultType;
+
+import java.util.List;
+
+/**
+ * Everything the board fragment needs to be rendered, computed in a single pass by {@link BoardFormatter}.
+ * Ranks are listed from 8 to 1, and squares from file a to h: this is the order they are displayed in.
+ */
+record BoardView(
+        String id,
+        List<Rank> ranks,
+        Board.Error error,
+        ChessGameResultType result,
+        Side sideToMove,
+        // Last move using UCI notation, or null if no move was played.
+        String lastMove,
+        int round,
+        // Number of moves played since the standard initial position.
+        int ply,
+        String fen,
+        // Outcome with best play according to the endgame tablebase, or null if this position is not covered.
+        String endgame
+) {
+    record Rank(int number, List<SquareView> squares) {
+    }
+
+    record SquareView(
+            String name,
+            // CSS classes: background is always set, piece is null for an empty square.
+            String background,
+            String piece,
+            boolean legalMove,
+            // Coordinates are displayed on the edges of the board only: these labels are null elsewhere.
+            String rankLabel,
+            String fileLabel,
+            String labelClass
+    ) {
+    }
+}
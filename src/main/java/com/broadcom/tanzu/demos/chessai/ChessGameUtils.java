@@ -17,25 +17,64 @@
 package com.broadcom.tanzu.demos.chessai;
 
 import io.github.wolfraam.chessgame.ChessGame;
-import io.github.wolfraam.chessgame.pgn.PGNExporter;
-import io.github.wolfraam.chessgame.pgn.PGNTag;
+import io.github.wolfraam.chessgame.board.Piece;
+import io.github.wolfraam.chessgame.board.Side;
+import io.github.wolfraam.chessgame.move.Move;
 
-import java.io.ByteArrayOutputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.List;
 
 class ChessGameUtils {
     private ChessGameUtils() {
     }
 
     public static String getPGNData(ChessGame game) {
-        if (!game.getAvailablePGNTags().contains(PGNTag.RESULT)) {
-            game.getPGNData().setPGNTag(PGNTag.RESULT, "*");
+        // The game is left untouched: tags are written by PgnWriter.
+        final var buf = new StringWriter(1024);
+        try {
+            new PgnWriter(buf).write(game);
+        } catch (IOException e) {
+            // This cannot happen with a StringWriter.
+            throw new UncheckedIOException(e);
         }
-        game.getPGNData().setPGNTag(PGNTag.WHITE, "Human");
-        game.getPGNData().setPGNTag(PGNTag.BLACK, "AI");
+        return buf.toString();
+    }
+
+    public static String toUci(Move move) {
+        final var uci = move.from.name + move.to.name;
+        if (move.promotion == null) {
+            return uci;
+        }
+        return uci + Piece.fromPieceTypeAndSide(move.promotion, Side.BLACK).fenCharacter;
+    }
+
+    public static List<String> getUciMoves(ChessGame game) {
+        // Unlike ChessGame#getNotationList, this list does not replay the game:
+        // each move is converted to UCI notation only when it is accessed.
+        final var moves = game.getMoves();
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return toUci(moves.get(index));
+            }
+
+            @Override
+            public int size() {
+                return moves.size();
+            }
+        };
+    }
+
+    public static int getPly(String fen) {
+        // Compute the number of moves played since the standard initial position.
+        final var fields = fen.split(" ");
+        return 2 * (Integer.parseInt(fields[5]) - 1) + ("b".equals(fields[1]) ? 1 : 0);
+    }
 
-        final var buf = new ByteArrayOutputStream(1024);
-        new PGNExporter(buf).write(game);
-        return buf.toString(StandardCharsets.UTF_8);
+    public static int getHalfMoveClock(String fen) {
+        return Integer.parseInt(fen.split(" ")[4]);
     }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.broadcom.tanzu.demos.chessai.engine.OpeningBook;
+import com.broadcom.tanzu.demos.chessai.engine.ParallelSearch;
+import com.broadcom.tanzu.demos.chessai.engine.Tablebase;
+import com.broadcom.tanzu.demos.chessai.engine.TranspositionTable;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(EngineConfig.EngineDataHints.class)
+class EngineConfig {
+    private final Logger logger = LoggerFactory.getLogger(EngineConfig.class);
+
+    @Bean
+    TranspositionTable transpositionTable(MeterRegistry meterRegistry,
+                                          @Value("${app.chess.engine.hash-size:64MB}") DataSize hashSize) {
+        // A single table is shared by all searches: many games go through the same positions.
+        final var table = new TranspositionTable(hashSize.toBytes());
+        logger.atInfo().log("Using transposition table: {} MB", table.sizeInBytes() / (1024 * 1024));
+
+        FunctionCounter.builder("chess.engine.tt.probes", table, TranspositionTable::probes)
+                .description("Number of transposition table lookups").register(meterRegistry);
+        FunctionCounter.builder("chess.engine.tt.hits", table, TranspositionTable::hits)
+                .description("Number of transposition table lookups which found an entry").register(meterRegistry);
+        Gauge.builder("chess.engine.tt.hit.ratio", table, t -> t.probes() == 0 ? 0 : (double) t.hits() / t.probes())
+                .description("Ratio of transposition table lookups which found an entry").register(meterRegistry);
+        Gauge.builder("chess.engine.tt.fill.ratio", table, TranspositionTable::fillRate)
+                .description("Estimated ratio of transposition table entries in use").register(meterRegistry);
+        return table;
+    }
+
+    @Bean
+    ParallelSearch parallelSearch(TranspositionTable table, Tablebase tablebase, MeterRegistry meterRegistry,
+                                  @Value("${app.chess.engine.max-helper-threads:-1}") int maxHelperThreads) {
+        // Helper threads are shared by all searches: by default we use one thread per CPU core.
+        final int helperThreads = maxHelperThreads < 0 ? Runtime.getRuntime().availableProcessors() : maxHelperThreads;
+        logger.atInfo().log("Using up to {} helper threads for engine searches", helperThreads);
+        final var search = new ParallelSearch(table, tablebase, helperThreads);
+        Gauge.builder("chess.engine.helper.threads.active", search, ParallelSearch::activeHelperThreads)
+                .description("Number of helper threads currently used by engine searches").register(meterRegistry);
+        return search;
+    }
+
+    @Bean
+    OpeningBook openingBook(@Value("${app.chess.book.enabled:true}") boolean enabled,
+                            @Value("${app.chess.book.location:classpath:book/openings.bin}") Resource location) throws IOException {
+        if (!enabled) {
+            logger.atInfo().log("Opening book is disabled");
+            return OpeningBook.empty();
+        }
+        final var book = OpeningBook.open(toFile(location));
+        logger.atInfo().log("Using opening book {}: {} entries", location, book.size());
+        return book;
+    }
+
+    @Bean
+    Tablebase tablebase(MeterRegistry meterRegistry,
+                        @Value("${app.chess.tablebase.enabled:true}") boolean enabled,
+                        @Value("${app.chess.tablebase.location:classpath:tablebase/endgames.tb}") Resource location,
+                        @Value("${app.chess.tablebase.cache-size:2MB}") DataSize cacheSize) throws IOException {
+        if (!enabled) {
+            logger.atInfo().log("Endgame tablebase is disabled");
+            return Tablebase.empty();
+        }
+        final var tablebase = Tablebase.open(toFile(location), cacheSize.toBytes());
+        logger.atInfo().log("Using endgame tablebase {}: {} tables, {} KB page cache",
+                location, tablebase.tables(), tablebase.cacheSizeInBytes() / 1024);
+
+        FunctionCounter.builder("chess.engine.tb.probes", tablebase, Tablebase::probes)
+                .description("Number of endgame tablebase lookups").register(meterRegistry);
+        FunctionCounter.builder("chess.engine.tb.hits", tablebase, Tablebase::hits)
+                .description("Number of endgame tablebase lookups which found a position").register(meterRegistry);
+        FunctionCounter.builder("chess.engine.tb.cache", tablebase, Tablebase::pageHits).tag("result", "hit")
+                .description("Endgame tablebase page cache lookups").register(meterRegistry);
+        FunctionCounter.builder("chess.engine.tb.cache", tablebase, Tablebase::pageMisses).tag("result", "miss")
+                .description("Endgame tablebase page cache lookups").register(meterRegistry);
+        Gauge.builder("chess.engine.tb.cache.hit.ratio", tablebase, t -> {
+                    final long total = t.pageHits() + t.pageMisses();
+                    return total == 0 ? 0 : (double) t.pageHits() / total;
+                })
+                .description("Ratio of endgame tablebase page cache lookups which found a page").register(meterRegistry);
+        return tablebase;
+    }
+
+    private static Path toFile(Resource resource) throws IOException {
+        // Data files are memory-mapped: a file which is bundled with the app is first extracted.
+        if (resource.isFile()) {
+            return resource.getFile().toPath();
+        }
+        final var file = Files.createTempFile("chess-", "-" + resource.getFilename());
+        file.toFile().deleteOnExit();
+        try (final var in = resource.getInputStream()) {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    static class EngineDataHints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Bundled engine data files must be included in native images.
+            hints.resources().registerPattern("book/openings.bin");
+            hints.resources().registerPattern("tablebase/endgames.tb");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.broadcom.tanzu.demos.chessai.engine.Moves;
+import com.broadcom.tanzu.demos.chessai.engine.OpeningBook;
+import com.broadcom.tanzu.demos.chessai.engine.ParallelSearch;
+import com.broadcom.tanzu.demos.chessai.engine.Position;
+import com.broadcom.tanzu.demos.chessai.engine.SearchLimits;
+import com.broadcom.tanzu.demos.chessai.engine.Tablebase;
+import io.github.wolfraam.chessgame.ChessGame;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Component
+class EngineMoveStrategy implements MoveStrategy {
+    private final Logger logger = LoggerFactory.getLogger(EngineMoveStrategy.class);
+    private final ParallelSearch search;
+    private final OpeningBook book;
+    private final Tablebase tablebase;
+    private final Ponderer ponderer;
+    private final SearchLimits limits;
+    private final int threads;
+    private final Timer searchTimer;
+    private final Counter nodeCounter;
+    private final Counter bookHits;
+    private final Counter bookMisses;
+    private final Map<Ponderer.Outcome, Timer> moveTimers = new EnumMap<>(Ponderer.Outcome.class);
+
+    // Moves are computed in-process using our own chess engine:
+    // the search stops once the max depth or the time limit is reached.
+    // Each search may use several threads, depending on how many helper threads are available.
+    // Known opening positions are played from the opening book, and endgames from the tablebase,
+    // without any search. Other moves may have been found while the player was thinking (see Ponderer).
+
+    EngineMoveStrategy(ParallelSearch search, OpeningBook book, Tablebase tablebase, Ponderer ponderer,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.chess.engine.max-depth:64}") int maxDepth,
+                       @Value("${app.chess.engine.time-limit:1s}") Duration timeLimit,
+                       @Value("${app.chess.engine.threads:2}") int threads) {
+        this.search = search;
+        this.book = book;
+        this.tablebase = tablebase;
+        this.ponderer = ponderer;
+        this.limits = new SearchLimits(maxDepth, timeLimit);
+        this.threads = Math.max(1, threads);
+        this.searchTimer = Timer.builder("chess.engine.search")
+                .description("Time spent searching for the next move")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.nodeCounter = Counter.builder("chess.engine.nodes")
+                .description("Number of positions searched by the engine")
+                .register(meterRegistry);
+        this.bookHits = Counter.builder("chess.engine.book").tag("result", "hit")
+                .description("Opening book lookups").register(meterRegistry);
+        this.bookMisses = Counter.builder("chess.engine.book").tag("result", "miss")
+                .description("Opening book lookups").register(meterRegistry);
+        // AI move latency depends on pondering: the hit rate is the share of moves tagged with "hit".
+        for (final var outcome : Ponderer.Outcome.values()) {
+            moveTimers.put(outcome, Timer.builder("chess.engine.move")
+                    .description("Time spent finding a move which is neither in the opening book nor in the tablebase")
+                    .tag("ponder", outcome.name().toLowerCase(Locale.ROOT))
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public String nextMove(ChessGame game) {
+        final var pos = toPosition(game);
+
+        final int bookMove = book.probe(pos, ThreadLocalRandom.current());
+        if (bookMove != Moves.NONE) {
+            bookHits.increment();
+            logger.atDebug().log("Playing book move for position {}: {}", pos, Moves.toUci(bookMove));
+            return Moves.toUci(bookMove);
+        }
+        bookMisses.increment();
+
+        final int tablebaseMove = tablebase.bestMove(pos);
+        if (tablebaseMove != Moves.NONE) {
+            logger.atDebug().log("Playing tablebase move for position {}: {}", pos, Moves.toUci(tablebaseMove));
+            return Moves.toUci(tablebaseMove);
+        }
+
+        final long start = System.nanoTime();
+        final var pondered = ponderer.take(pos);
+        if (pondered.result() != null) {
+            moveTimers.get(pondered.outcome()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            logger.atDebug().log("Playing pondered move for position {}: {} (depth {}, score {})",
+                    pos, pondered.result().bestMove(), pondered.result().depth(), pondered.result().score());
+            return pondered.result().bestMove();
+        }
+
+        final var result = searchTimer.record(() -> search.search(pos, limits, threads));
+        moveTimers.get(pondered.outcome()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        nodeCounter.increment(result.nodes());
+        logger.atDebug().log("Engine search result for position {}: {} (depth {}, score {}, {} nodes, {} nodes/s)",
+                pos, result.bestMove(), result.depth(), result.score(), result.nodes(), result.nodesPerSecond());
+        return result.bestMove();
+    }
+
+    static Position toPosition(ChessGame game) {
+        // Replay moves from the initial position, so that the engine can detect repeated positions.
+        final var pos = Position.fromFen(game.getInitialFen());
+        for (final var move : ChessGameUtils.getUciMoves(game)) {
+            pos.play(move);
+        }
+        return pos;
+    }
+}
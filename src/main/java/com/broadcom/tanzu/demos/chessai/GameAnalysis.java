@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import java.util.List;
+
+/**
+ * Engine analysis of a game, computed from the board version <code>version</code>:
+ * each move is compared with the best move found by the engine at a fixed depth.
+ */
+record GameAnalysis(String boardId, long version, int depth, List<MoveAnnotation> moves) {
+    /**
+     * Annotation for a move: <code>score</code> is the position score once this move is played,
+     * and <code>loss</code> is the score lost compared to the best move.
+     * Scores are given in centipawns from White's point of view, and forced mates are capped.
+     */
+    record MoveAnnotation(int ply, String move, String bestMove, int score, int loss, Judgement judgement) {
+    }
+
+    enum Judgement {
+        BEST,
+        GOOD,
+        INACCURACY,
+        MISTAKE,
+        BLUNDER;
+
+        static Judgement of(int loss) {
+            if (loss >= 300) {
+                return BLUNDER;
+            }
+            if (loss >= 100) {
+                return MISTAKE;
+            }
+            if (loss >= 50) {
+                return INACCURACY;
+            }
+            return GOOD;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.broadcom.tanzu.demos.chessai.engine.Position;
+import com.broadcom.tanzu.demos.chessai.engine.Search;
+import com.broadcom.tanzu.demos.chessai.engine.SearchLimits;
+import com.broadcom.tanzu.demos.chessai.engine.Tablebase;
+import com.broadcom.tanzu.demos.chessai.engine.TranspositionTable;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Serial;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+class GameAnalyzer implements AutoCloseable {
+    // Scores are capped when computing the loss of a move: missing a forced mate is a blunder,
+    // but it does not cost more than missing a queen.
+    private static final int MAX_SCORE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(GameAnalyzer.class);
+    private final BoardRepository repo;
+    private final AnalysisStore store;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Search> searches;
+    private final Cache<Long, PositionScore> scores;
+    private final SearchLimits limits;
+    private final int depth;
+    private final int batchSize;
+    private final Counter evaluatedPositions;
+    private final Counter cachedPositions;
+    private final Timer batchTimer;
+
+    // Games are analyzed offline, in batches: all positions from a batch are evaluated by the engine
+    // using a dedicated fork-join pool, each worker thread running its own search.
+    // Searches share a transposition table which is not used to play moves, so that analyzing games
+    // does not evict entries used by live games.
+    // Many games go through the same positions (openings especially): position scores are cached
+    // using the position hash, so that a position is only searched once.
+
+    GameAnalyzer(BoardRepository repo, AnalysisStore store, Tablebase tablebase, MeterRegistry meterRegistry,
+                 @Value("${app.chess.analysis.depth:8}") int depth,
+                 @Value("${app.chess.analysis.threads:-1}") int threads,
+                 @Value("${app.chess.analysis.hash-size:32MB}") DataSize hashSize,
+                 @Value("${app.chess.analysis.cache-size:100000}") long cacheSize,
+                 @Value("${app.chess.analysis.batch-size:100}") int batchSize) {
+        this.repo = repo;
+        this.store = store;
+        this.depth = depth;
+        // The time limit is only a safeguard: scores must not depend on the load of the machine.
+        this.limits = new SearchLimits(depth, Duration.ofMinutes(1));
+        this.batchSize = Math.max(1, batchSize);
+
+        final var table = new TranspositionTable(hashSize.toBytes());
+        this.searches = ThreadLocal.withInitial(() -> new Search(table, tablebase));
+        final int parallelism = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+        this.pool = new ForkJoinPool(parallelism, p -> {
+            final var t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("analysis-" + t.getPoolIndex());
+            return t;
+        }, null, false);
+        logger.atInfo().log("Using {} threads for game analysis (depth {})", parallelism, depth);
+
+        this.scores = Caffeine.newBuilder().maximumSize(cacheSize).build();
+        this.evaluatedPositions = Counter.builder("chess.analysis.positions").tag("result", "evaluated")
+                .description("Positions evaluated when analyzing games").register(meterRegistry);
+        this.cachedPositions = Counter.builder("chess.analysis.positions").tag("result", "cached")
+                .description("Positions evaluated when analyzing games").register(meterRegistry);
+        this.batchTimer = Timer.builder("chess.analysis.batch")
+                .description("Time spent analyzing a batch of games")
+                .register(meterRegistry);
+        Gauge.builder("chess.analysis.cache.size", scores, Cache::estimatedSize)
+                .description("Number of position scores in the analysis cache").register(meterRegistry);
+    }
+
+    /**
+     * Analyze stored games: boards which cannot be found are skipped.
+     */
+    AnalysisReport analyze(List<String> ids) {
+        // Boards are loaded with all moves, just like when analyzing all games:
+        // a board restored from a snapshot would leave out moves played before this snapshot.
+        final var report = new ReportBuilder();
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            analyzeBatch(new ArrayList<>(repo.loadAll(ids.subList(i, Math.min(ids.size(), i + batchSize)))), report);
+        }
+        return report.build();
+    }
+
+    /**
+     * Analyze all stored games.
+     */
+    AnalysisReport analyzeAll() {
+        final var report = new ReportBuilder();
+        final var batch = new ArrayList<Board>(batchSize);
+        repo.forEach(batchSize, board -> {
+            batch.add(board);
+            if (batch.size() >= batchSize) {
+                analyzeBatch(batch, report);
+            }
+        });
+        analyzeBatch(batch, report);
+        return report.build();
+    }
+
+    private void analyzeBatch(List<Board> boards, ReportBuilder report) {
+        if (boards.isEmpty()) {
+            return;
+        }
+        final var analyses = batchTimer.record(() -> analyze(boards, report));
+        store.saveAll(analyses);
+        logger.atDebug().log("Analyzed {} games", analyses.size());
+        boards.clear();
+    }
+
+    private List<GameAnalysis> analyze(List<Board> boards, ReportBuilder report) {
+        // Replay all games first, so that positions from all games are evaluated at once:
+        // this keeps all threads busy, even with short games.
+        final var games = new ArrayList<ReplayedGame>(boards.size());
+        final var positions = new ArrayList<Position>();
+        for (final var board : boards) {
+            final var moves = ChessGameUtils.getUciMoves(board.game());
+            final var pos = Position.fromFen(board.game().getInitialFen());
+            games.add(new ReplayedGame(board, moves, positions.size()));
+            for (final var move : moves) {
+                positions.add(pos.copy());
+                pos.play(move);
+            }
+            positions.add(pos);
+        }
+
+        final var evaluated = new LongAdder();
+        final var results = new PositionScore[positions.size()];
+        pool.invoke(new EvaluateTask(positions, results, 0, results.length, evaluated));
+        evaluatedPositions.increment(evaluated.sum());
+        cachedPositions.increment(results.length - evaluated.sum());
+        report.add(boards.size(), results.length, evaluated.sum());
+
+        final var analyses = new ArrayList<GameAnalysis>(games.size());
+        for (final var game : games) {
+            final var annotations = new ArrayList<GameAnalysis.MoveAnnotation>(game.moves().size());
+            for (int i = 0; i < game.moves().size(); ++i) {
+                final int ply = game.firstPosition() + i;
+                annotations.add(annotate(i, game.moves().get(i), results[ply], results[ply + 1],
+                        positions.get(ply).isWhiteToMove()));
+            }
+            analyses.add(new GameAnalysis(game.board().id(), game.board().version(), depth, annotations));
+        }
+        return analyses;
+    }
+
+    private static GameAnalysis.MoveAnnotation annotate(int ply, String move, PositionScore before, PositionScore after,
+                                                        boolean whiteToMove) {
+        // Position scores are given from the point of view of the side to move:
+        // once the move is played, the score is given from the point of view of the opponent.
+        final int bestScore = cap(before.score());
+        final int playedScore = -cap(after.score());
+        final boolean best = move.equals(before.bestMove());
+        final int loss = best ? 0 : Math.max(0, bestScore - playedScore);
+        return new GameAnalysis.MoveAnnotation(ply, move, before.bestMove(), whiteToMove ? playedScore : -playedScore,
+                loss, best ? GameAnalysis.Judgement.BEST : GameAnalysis.Judgement.of(loss));
+    }
+
+    private static int cap(int score) {
+        return Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+    }
+
+    private PositionScore evaluate(Position pos, LongAdder evaluated) {
+        // Positions reached with a different move history share the same score:
+        // this is usually the case, unless a position is repeated.
+        // The search runs outside the cache, since a long computation would block other threads
+        // updating cache entries nearby: the same position may then be searched twice, which is harmless.
+        final var cached = scores.getIfPresent(pos.key());
+        if (cached != null) {
+            return cached;
+        }
+        evaluated.increment();
+        final var result = searches.get().search(pos, limits);
+        final var score = new PositionScore(result.score(), result.bestMove());
+        scores.put(pos.key(), score);
+        return score;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private final class EvaluateTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are never serialized: they only live in the analysis pool.
+        private final transient List<Position> positions;
+        private final transient PositionScore[] results;
+        private final int from;
+        private final int to;
+        private final transient LongAdder evaluated;
+
+        EvaluateTask(List<Position> positions, PositionScore[] results, int from, int to, LongAdder evaluated) {
+            this.positions = positions;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.evaluated = evaluated;
+        }
+
+        @Override
+        protected void compute() {
+            // Each position is a search on its own: tasks are split down to a single position,
+            // and idle threads steal the remaining halves.
+            if (to - from == 1) {
+                results[from] = evaluate(positions.get(from), evaluated);
+                return;
+            }
+            final int mid = (from + to) >>> 1;
+            invokeAll(new EvaluateTask(positions, results, from, mid, evaluated),
+                    new EvaluateTask(positions, results, mid, to, evaluated));
+        }
+    }
+
+    private record ReplayedGame(Board board, List<String> moves, int firstPosition) {
+    }
+
+    private record PositionScore(int score, String bestMove) {
+    }
+
+    /**
+     * Summary of an analysis job: <code>evaluated</code> is the number of positions searched by the engine,
+     * other positions were found in the cache.
+     */
+    record AnalysisReport(long games, long positions, long evaluated, long elapsedMillis, double positionsPerSecond) {
+    }
+
+    private static final class ReportBuilder {
+        private final long start = System.nanoTime();
+        private long games;
+        private long positions;
+        private long evaluated;
+
+        void add(long games, long positions, long evaluated) {
+            this.games += games;
+            this.positions += positions;
+            this.evaluated += evaluated;
+        }
+
+        AnalysisReport build() {
+            final long nanos = System.nanoTime() - start;
+            return new AnalysisReport(games, positions, evaluated, nanos / 1_000_000,
+                    nanos == 0 ? 0 : positions * 1e9 / nanos);
+        }
+    }
+}
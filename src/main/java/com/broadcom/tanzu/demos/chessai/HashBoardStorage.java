@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+class HashBoardStorage implements BoardStorage {
+    /**
+     * Channel used to publish board updates, as messages such as "<id> <version>".
+     */
+    static final String UPDATES_CHANNEL = "chess::updates";
+    private static final List<Object> FIELDS = List.of("current", "error", "moves", "snapshot", "version");
+    private static final byte[][] FIELD_NAMES = FIELDS.stream()
+            .map(f -> ((String) f).getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+
+    // Append the last move to the stored moves, as long as nobody updated this board
+    // since it was loaded (same version) and at most one move was played since then.
+    // The script returns -1 if this board was updated concurrently,
+    // or -2 if all moves must be rewritten.
+    private static final RedisScript<Long> APPEND_SCRIPT = RedisScript.of("""
+            local state = redis.call('HMGET', KEYS[1], 'version', 'ply')
+            local version = tonumber(state[1]) or 0
+            local ply = tonumber(state[2])
+            local target = tonumber(ARGV[2])
+            if version ~= tonumber(ARGV[1]) then
+                return -1
+            end
+            if ply == nil then
+                return -2
+            end
+            if target == ply + 1 then
+                local moves = redis.call('HGET', KEYS[1], 'moves')
+                if moves == false or moves == '' then
+                    moves = ARGV[5]
+                else
+                    moves = moves .. ' ' .. ARGV[5]
+                end
+                redis.call('HSET', KEYS[1], 'moves', moves, 'ply', target)
+            elseif target ~= ply then
+                return -2
+            end
+            redis.call('HSET', KEYS[1], 'current', ARGV[3], 'error', ARGV[4])
+            if ARGV[6] ~= '' then
+                redis.call('HSET', KEYS[1], 'snapshot', ARGV[6])
+            end
+            local newVersion = redis.call('HINCRBY', KEYS[1], 'version', 1)
+            redis.call('PUBLISH', ARGV[8], ARGV[7] .. ' ' .. newVersion)
+            return newVersion
+            """, Long.class);
+
+    // Rewrite all moves starting at a given ply: moves played before this ply are kept,
+    // since they were not loaded (the board was restored from a snapshot).
+    // The script returns -1 if this board was updated concurrently.
+    private static final RedisScript<Long> REWRITE_SCRIPT = RedisScript.of("""
+            local version = tonumber(redis.call('HGET', KEYS[1], 'version')) or 0
+            if version ~= tonumber(ARGV[9]) then
+                return -1
+            end
+            local first = tonumber(ARGV[4])
+            local moves = ARGV[3]
+            if first > 0 then
+                local kept = {}
+                local stored = redis.call('HGET', KEYS[1], 'moves') or ''
+                for move in string.gmatch(stored, '%S+') do
+                    if #kept == first then
+                        break
+                    end
+                    kept[#kept + 1] = move
+                end
+                if moves ~= '' then
+                    kept[#kept + 1] = moves
+                end
+                moves = table.concat(kept, ' ')
+            end
+            redis.call('HSET', KEYS[1], 'current', ARGV[1], 'error', ARGV[2], 'moves', moves, 'ply', ARGV[5])
+            if ARGV[6] ~= '' then
+                redis.call('HSET', KEYS[1], 'snapshot', ARGV[6])
+            else
+                -- A snapshot taken after the first rewritten move is no longer valid.
+                local snapshot = redis.call('HGET', KEYS[1], 'snapshot')
+                if snapshot and snapshot ~= '' and tonumber(string.match(snapshot, '^%d+')) > first then
+                    redis.call('HDEL', KEYS[1], 'snapshot')
+                end
+            end
+            local newVersion = version + 1
+            redis.call('HSET', KEYS[1], 'version', newVersion)
+            redis.call('PUBLISH', ARGV[8], ARGV[7] .. ' ' .. newVersion)
+            return newVersion
+            """, Long.class);
+
+    private final Logger logger = LoggerFactory.getLogger(HashBoardStorage.class);
+    private final StringRedisTemplate redis;
+    private final BoardStorage legacy;
+
+    // A board is stored as a single hash (chess::<id>), with all moves
+    // stored as a single field using UCI notation (separated with a space).
+    // The hash also tracks the number of moves (ply) and a version, which is incremented
+    // on each write: this way we only need to send the last move when a board is saved.
+    // A board is only written if its version has not changed since it was loaded (compare-and-set),
+    // which prevents concurrent updates from overwriting each other.
+    // A snapshot of a past position ("<ply> <fen>") may also be stored, so that a board
+    // can be loaded without replaying every move.
+    // Each write is published to a channel, so that other instances can evict cached boards.
+
+    HashBoardStorage(StringRedisTemplate redis, BoardStorage legacy) {
+        this.redis = redis;
+        this.legacy = legacy;
+    }
+
+    @Override
+    public Layout layout() {
+        return Layout.HASH;
+    }
+
+    @Override
+    public long write(String id, StoredBoard board) {
+        // Empty values are used in place of null values, so that every field is always overwritten.
+        final var keys = List.of("chess::" + id);
+        final var current = board.currentSquare() == null ? "" : board.currentSquare();
+        final var error = board.error() == null ? "" : board.error();
+        final var moves = board.moves();
+        final var ply = String.valueOf(board.firstPly() + moves.size());
+        final var lastMove = moves.isEmpty() ? "" : moves.getLast();
+        final var snapshot = board.snapshot() == null ? "" : board.snapshot().ply() + " " + board.snapshot().fen();
+
+        final var version = redis.execute(APPEND_SCRIPT, keys,
+                String.valueOf(board.version()), ply, current, error, lastMove, snapshot, id, UPDATES_CHANNEL);
+        if (version == null || version == -1) {
+            throw new BoardConflictException(id);
+        }
+        if (version != -2) {
+            return version;
+        }
+
+        // Stored moves cannot be appended: let's write all moves.
+        logger.atDebug().log("Rewriting moves for board {} from ply {} (version {})",
+                id, board.firstPly(), board.version());
+        final var newVersion = redis.execute(REWRITE_SCRIPT, keys,
+                current, error, String.join(" ", moves), String.valueOf(board.firstPly()), ply, snapshot, id, UPDATES_CHANNEL,
+                String.valueOf(board.version()));
+        if (newVersion == null || newVersion == -1) {
+            throw new BoardConflictException(id);
+        }
+        return newVersion;
+    }
+
+    @Override
+    public long readVersion(String id) {
+        final var version = (String) redis.opsForHash().get("chess::" + id, "version");
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    @Override
+    public StoredBoard read(String id) {
+        return read(id, true);
+    }
+
+    /**
+     * Read a board state including all moves, even if a snapshot is stored:
+     * this is used to move a board to another layout.
+     */
+    StoredBoard readAllMoves(String id) {
+        return read(id, false);
+    }
+
+    private StoredBoard read(String id, boolean useSnapshot) {
+        final var values = redis.opsForHash().multiGet("chess::" + id, FIELDS);
+        if (values.stream().allMatch(v -> v == null)) {
+            // This board may have been created before switching to this layout.
+            // The legacy layout reads a missing board as a board without any move: since new boards
+            // are always saved right away using the current layout, such a board is missing everywhere.
+            logger.atTrace().log("Board not found, falling back to legacy layout: {}", id);
+            final var stored = legacy.read(id);
+            return stored == null || isBlank(stored) ? null : stored;
+        }
+        return toStoredBoard(values, useSnapshot);
+    }
+
+    private static boolean isBlank(StoredBoard board) {
+        return board.moves().isEmpty() && board.currentSquare() == null && board.error() == null;
+    }
+
+    @Override
+    public List<StoredBoard> readAll(List<String> ids) {
+        // All boards are read using a single round trip.
+        final var results = redis.executePipelined((RedisCallback<Object>) conn -> {
+            for (final var id : ids) {
+                conn.hashCommands().hMGet(("chess::" + id).getBytes(StandardCharsets.UTF_8), FIELD_NAMES);
+            }
+            return null;
+        });
+        final var boards = new ArrayList<StoredBoard>(ids.size());
+        for (final var result : results) {
+            final var values = (List<?>) result;
+            boards.add(values.stream().allMatch(v -> v == null) ? null : toStoredBoard(values, false));
+        }
+        return boards;
+    }
+
+    @Override
+    public void scan(int batchSize, Consumer<List<String>> consumer) {
+        // Other keys (such as boards stored using other layouts) include a separator after the board id.
+        final var options = ScanOptions.scanOptions().match("chess::*").type(DataType.HASH).count(batchSize).build();
+        BoardStorage.scan(redis, options, key -> {
+            final var id = key.substring("chess::".length());
+            return id.contains("::") ? null : id;
+        }, batchSize, consumer);
+    }
+
+    private static StoredBoard toStoredBoard(List<?> values, boolean useSnapshot) {
+        final var current = (String) values.get(0);
+        final var error = (String) values.get(1);
+        final var moves = (String) values.get(2);
+        final var snapshotStr = (String) values.get(3);
+        final var version = (String) values.get(4);
+
+        Snapshot snapshot = null;
+        int firstPly = 0;
+        var movesStr = moves == null ? "" : moves;
+        if (useSnapshot && snapshotStr != null && !snapshotStr.isEmpty()) {
+            final var sep = snapshotStr.indexOf(' ');
+            snapshot = new Snapshot(Integer.parseInt(snapshotStr.substring(0, sep)), snapshotStr.substring(sep + 1));
+
+            // Skip moves played before this snapshot, without splitting them.
+            int start = 0;
+            while (firstPly < snapshot.ply() && start < movesStr.length()) {
+                final var next = movesStr.indexOf(' ', start);
+                start = next == -1 ? movesStr.length() : next + 1;
+                firstPly += 1;
+            }
+            movesStr = movesStr.substring(start);
+        }
+        return new StoredBoard(
+                current == null || current.isEmpty() ? null : current,
+                error == null || error.isEmpty() ? null : error,
+                movesStr.isEmpty() ? List.of() : Arrays.asList(movesStr.split(" ")),
+                firstPly, snapshot,
+                version == null ? 0 : Long.parseLong(version), null);
+    }
+}
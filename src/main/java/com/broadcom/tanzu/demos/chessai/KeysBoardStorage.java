@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+class KeysBoardStorage implements BoardStorage {
+    private final StringRedisTemplate redis;
+
+    // Each board field is stored under its own key (chess::<id>::current, chess::<id>::error,
+    // chess::<id>::moves): this costs up to 4 round trips per write and 3 per read, and
+    // a concurrent reader may see a partially written board.
+    // Board versions and snapshots are not supported by this layout: the whole board is always rewritten,
+    // and concurrent updates may overwrite each other.
+
+    KeysBoardStorage(StringRedisTemplate redis) {
+        this.redis = redis;
+    }
+
+    @Override
+    public Layout layout() {
+        return Layout.KEYS;
+    }
+
+    @Override
+    public long write(String id, StoredBoard board) {
+        if (board.firstPly() != 0) {
+            // This should never happen, since this layout never returns a snapshot.
+            throw new IllegalArgumentException("Unable to write partial moves for board: " + id);
+        }
+        if (board.currentSquare() == null) {
+            redis.delete("chess::" + id + "::current");
+        } else {
+            redis.opsForValue().set("chess::" + id + "::current", board.currentSquare());
+        }
+        if (board.error() == null) {
+            redis.delete("chess::" + id + "::error");
+        } else {
+            redis.opsForValue().set("chess::" + id + "::error", board.error());
+        }
+        redis.delete("chess::" + id + "::moves");
+        if (!board.moves().isEmpty()) {
+            redis.opsForList().rightPushAll("chess::" + id + "::moves", board.moves());
+        }
+        return 0;
+    }
+
+    @Override
+    public long readVersion(String id) {
+        return 0;
+    }
+
+    @Override
+    public StoredBoard read(String id) {
+        final var current = redis.opsForValue().get("chess::" + id + "::current");
+        final var error = redis.opsForValue().get("chess::" + id + "::error");
+        final var moves = redis.opsForList().range("chess::" + id + "::moves", 0, -1);
+        // There is no way to tell a new board from a missing one with this layout:
+        // a missing board is read as a board without any move.
+        return new StoredBoard(current, error, moves == null ? List.of() : moves, 0, null, 0, null);
+    }
+
+    @Override
+    public List<StoredBoard> readAll(List<String> ids) {
+        return ids.stream().map(this::read).toList();
+    }
+
+    @Override
+    public void scan(int batchSize, Consumer<List<String>> consumer) {
+        // Boards without any move cannot be found with this layout.
+        final var options = ScanOptions.scanOptions().match("chess::*::moves").count(batchSize).build();
+        BoardStorage.scan(redis, options, key -> key.substring("chess::".length(), key.length() - "::moves".length()),
+                batchSize, consumer);
+    }
+}
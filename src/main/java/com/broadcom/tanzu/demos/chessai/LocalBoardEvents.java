@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+class LocalBoardEvents implements BoardEvents {
+    private final SimpMessagingTemplate stomp;
+
+    LocalBoardEvents(SimpMessagingTemplate stomp) {
+        this.stomp = stomp;
+    }
+
+    @Override
+    public void send(String boardId, Object event) {
+        stomp.convertAndSend(BoardSubscriptions.TOPIC_PREFIX + boardId, event);
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+class PackedBoardStorage implements BoardStorage {
+    /**
+     * Sorted set of board ids, scored with the time of their last update.
+     */
+    static final String ACTIVITY_KEY = "chess::activity";
+    /**
+     * Sorted set of finished board ids, scored with the time of their last update.
+     */
+    static final String FINISHED_KEY = "chess::finished";
+    private static final byte[][] FIELDS = Arrays.stream(new String[]{"current", "error", "moves", "snapshot", "version", "result"})
+            .map(f -> f.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+    private static final RedisSerializer<Long> NUMBER = new GenericToStringSerializer<>(Long.class);
+
+    // These scripts are the same as the ones used by the hash layout, except that moves are
+    // binary strings (2 bytes per move), and that board activity is tracked using sorted sets.
+
+    private static final RedisScript<Long> APPEND_SCRIPT = RedisScript.of("""
+            local state = redis.call('HMGET', KEYS[1], 'version', 'ply')
+            local version = tonumber(state[1]) or 0
+            local ply = tonumber(state[2])
+            local target = tonumber(ARGV[2])
+            if version ~= tonumber(ARGV[1]) then
+                return -1
+            end
+            if ply == nil then
+                return -2
+            end
+            if target == ply + 1 then
+                local moves = redis.call('HGET', KEYS[1], 'moves') or ''
+                redis.call('HSET', KEYS[1], 'moves', moves .. ARGV[5], 'ply', target)
+            elseif target ~= ply then
+                return -2
+            end
+            redis.call('HSET', KEYS[1], 'current', ARGV[3], 'error', ARGV[4], 'result', ARGV[9])
+            if ARGV[6] ~= '' then
+                redis.call('HSET', KEYS[1], 'snapshot', ARGV[6])
+            end
+            local newVersion = redis.call('HINCRBY', KEYS[1], 'version', 1)
+            redis.call('ZADD', KEYS[2], ARGV[10], ARGV[7])
+            if ARGV[9] ~= '' then
+                redis.call('ZADD', KEYS[3], ARGV[10], ARGV[7])
+            end
+            redis.call('PUBLISH', ARGV[8], ARGV[7] .. ' ' .. newVersion)
+            return newVersion
+            """, Long.class);
+
+    // Moves played before the first rewritten move are kept: the script returns -3
+    // if these moves are missing.
+    private static final RedisScript<Long> REWRITE_SCRIPT = RedisScript.of("""
+            local version = tonumber(redis.call('HGET', KEYS[1], 'version')) or 0
+            if version ~= tonumber(ARGV[9]) then
+                return -1
+            end
+            local first = tonumber(ARGV[4])
+            local moves = ARGV[3]
+            if first > 0 then
+                local stored = redis.call('HGET', KEYS[1], 'moves') or ''
+                if #stored < first * 2 then
+                    return -3
+                end
+                moves = string.sub(stored, 1, first * 2) .. moves
+            end
+            redis.call('HSET', KEYS[1], 'current', ARGV[1], 'error', ARGV[2], 'moves', moves, 'ply', ARGV[5], 'result', ARGV[10])
+            if ARGV[6] ~= '' then
+                redis.call('HSET', KEYS[1], 'snapshot', ARGV[6])
+            else
+                local snapshot = redis.call('HGET', KEYS[1], 'snapshot')
+                if snapshot and snapshot ~= '' and tonumber(string.match(snapshot, '^%d+')) > first then
+                    redis.call('HDEL', KEYS[1], 'snapshot')
+                end
+            end
+            local newVersion = version + 1
+            redis.call('HSET', KEYS[1], 'version', newVersion)
+            redis.call('ZADD', KEYS[2], ARGV[11], ARGV[7])
+            if ARGV[10] ~= '' then
+                redis.call('ZADD', KEYS[3], ARGV[11], ARGV[7])
+            else
+                redis.call('ZREM', KEYS[3], ARGV[7])
+            end
+            redis.call('PUBLISH', ARGV[8], ARGV[7] .. ' ' .. newVersion)
+            return newVersion
+            """, Long.class);
+
+    // Restore an archived board, unless this board is already stored:
+    // the script returns 0 if nothing was restored.
+    private static final RedisScript<Long> RESTORE_SCRIPT = RedisScript.of("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'current', ARGV[1], 'error', ARGV[2], 'moves', ARGV[3], 'ply', ARGV[4],
+                       'snapshot', ARGV[5], 'version', ARGV[6], 'result', ARGV[7])
+            redis.call('ZADD', KEYS[2], ARGV[8], ARGV[9])
+            if ARGV[7] ~= '' then
+                redis.call('ZADD', KEYS[3], ARGV[8], ARGV[9])
+            end
+            return 1
+            """, Long.class);
+
+    // Remove an archived board, as long as it was not updated since it was archived:
+    // the script returns 0 if this board was updated.
+    private static final RedisScript<Long> DELETE_SCRIPT = RedisScript.of("""
+            local version = tonumber(redis.call('HGET', KEYS[1], 'version')) or 0
+            if version ~= tonumber(ARGV[1]) then
+                return 0
+            end
+            redis.call('DEL', KEYS[1])
+            redis.call('ZREM', KEYS[2], ARGV[2])
+            redis.call('ZREM', KEYS[3], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final Logger logger = LoggerFactory.getLogger(PackedBoardStorage.class);
+    private final StringRedisTemplate redis;
+    private final HashBoardStorage legacy;
+    private final BoardArchive archive;
+
+    // A board is stored as a single hash (chess::<id>::packed), just like the hash layout:
+    // moves are stored as a single binary string, using 2 bytes per move (see PackedMoves)
+    // instead of 5 bytes or so using UCI notation.
+    // Boards are moved to a local archive once they are finished or idle (see BoardSweeper):
+    // an archived board is restored as soon as it is requested.
+    // Boards which are only stored using the hash layout are moved to this layout on their next write.
+
+    PackedBoardStorage(StringRedisTemplate redis, HashBoardStorage legacy, BoardArchive archive) {
+        this.redis = redis;
+        this.legacy = legacy;
+        this.archive = archive;
+    }
+
+    @Override
+    public Layout layout() {
+        return Layout.PACKED;
+    }
+
+    private static String key(String id) {
+        return "chess::" + id + "::packed";
+    }
+
+    private List<String> keys(String id) {
+        return List.of(key(id), ACTIVITY_KEY, FINISHED_KEY);
+    }
+
+    private static byte[] bytes(Object value) {
+        return value == null ? new byte[0] : value.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return value == null || value.length == 0 ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public long write(String id, StoredBoard board) {
+        final var current = bytes(board.currentSquare());
+        final var error = bytes(board.error());
+        final var moves = board.moves();
+        final var ply = bytes(board.firstPly() + moves.size());
+        final var snapshot = board.snapshot() == null ? new byte[0] : bytes(board.snapshot().ply() + " " + board.snapshot().fen());
+        final var result = bytes(board.result());
+        final var now = bytes(System.currentTimeMillis());
+
+        final var lastMove = new byte[moves.isEmpty() ? 0 : PackedMoves.MOVE_SIZE];
+        if (!moves.isEmpty()) {
+            PackedMoves.encodeMove(moves.getLast(), lastMove, 0);
+        }
+        final var version = redis.execute(APPEND_SCRIPT, RedisSerializer.byteArray(), NUMBER, keys(id),
+                bytes(board.version()), ply, current, error, lastMove, snapshot, bytes(id),
+                bytes(HashBoardStorage.UPDATES_CHANNEL), result, now);
+        if (version == null || version == -1) {
+            throw new BoardConflictException(id);
+        }
+        if (version != -2) {
+            return version;
+        }
+
+        logger.atDebug().log("Rewriting moves for board {} from ply {} (version {})",
+                id, board.firstPly(), board.version());
+        final var newVersion = redis.execute(REWRITE_SCRIPT, RedisSerializer.byteArray(), NUMBER, keys(id),
+                (Object[]) rewriteArgs(id, board, now));
+        if (newVersion == null || newVersion == -1) {
+            throw new BoardConflictException(id);
+        }
+        if (newVersion == -3) {
+            throw new IllegalStateException("Missing moves before ply " + board.firstPly() + " for board: " + id);
+        }
+        return newVersion;
+    }
+
+    private static byte[][] rewriteArgs(String id, StoredBoard board, byte[] now) {
+        final var snapshot = board.snapshot() == null ? new byte[0] : bytes(board.snapshot().ply() + " " + board.snapshot().fen());
+        return new byte[][]{
+                bytes(board.currentSquare()), bytes(board.error()), PackedMoves.encode(board.moves()),
+                bytes(board.firstPly()), bytes(board.firstPly() + board.moves().size()), snapshot, bytes(id),
+                bytes(HashBoardStorage.UPDATES_CHANNEL), bytes(board.version()), bytes(board.result()), now};
+    }
+
+    @Override
+    public void writeAll(Map<String, StoredBoard> boards) {
+        // All boards are written using a single round trip.
+        final var script = REWRITE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        final var now = bytes(System.currentTimeMillis());
+        final var results = redis.executePipelined((RedisCallback<Object>) conn -> {
+            for (final var e : boards.entrySet()) {
+                final var keysAndArgs = new ArrayList<byte[]>();
+                keys(e.getKey()).forEach(k -> keysAndArgs.add(bytes(k)));
+                keysAndArgs.addAll(Arrays.asList(rewriteArgs(e.getKey(), e.getValue(), now)));
+                conn.scriptingCommands().eval(script, ReturnType.INTEGER, 3, keysAndArgs.toArray(byte[][]::new));
+            }
+            return null;
+        });
+        final var ids = boards.keySet().iterator();
+        for (final var result : results) {
+            final var id = ids.next();
+            if (!(result instanceof Long version) || version < 0) {
+                throw new BoardConflictException(id);
+            }
+        }
+    }
+
+    @Override
+    public long readVersion(String id) {
+        final var version = (String) redis.opsForHash().get(key(id), "version");
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    @Override
+    public StoredBoard read(String id) {
+        var entry = readEntry(id);
+        if (entry == null && restore(id)) {
+            entry = readEntry(id);
+        }
+        if (entry == null) {
+            // This board may have been created before switching to this layout:
+            // all moves are read, since moves played before a snapshot are not available once the board is moved.
+            // The board version is reset, since this board is not stored using this layout yet.
+            logger.atTrace().log("Board not found, falling back to legacy layout: {}", id);
+            final var stored = legacy.readAllMoves(id);
+            return stored == null ? null : new StoredBoard(stored.currentSquare(), stored.error(), stored.moves(),
+                    stored.firstPly(), stored.snapshot(), 0, stored.result());
+        }
+        return toStoredBoard(entry, true);
+    }
+
+    @Override
+    public List<StoredBoard> readAll(List<String> ids) {
+        // All boards are read using a single round trip: archived boards are not restored.
+        final var results = redis.executePipelined((RedisCallback<Object>) conn -> {
+            for (final var id : ids) {
+                conn.hashCommands().hMGet(bytes(key(id)), FIELDS);
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+        final var boards = new ArrayList<StoredBoard>(ids.size());
+        for (int i = 0; i < ids.size(); ++i) {
+            @SuppressWarnings("unchecked")
+            final var values = (List<byte[]>) results.get(i);
+            final var entry = toEntry(ids.get(i), values);
+            boards.add(entry == null ? null : toStoredBoard(entry, false));
+        }
+        return boards;
+    }
+
+    @Override
+    public void scan(int batchSize, Consumer<List<String>> consumer) {
+        final var options = ScanOptions.scanOptions().match("chess::*::packed").count(batchSize).build();
+        BoardStorage.scan(redis, options, key -> key.substring("chess::".length(), key.length() - "::packed".length()),
+                batchSize, consumer);
+    }
+
+    private static StoredBoard toStoredBoard(BoardArchive.Entry entry, boolean useSnapshot) {
+        Snapshot snapshot = null;
+        int firstPly = 0;
+        if (useSnapshot && entry.snapshot() != null) {
+            final var sep = entry.snapshot().indexOf(' ');
+            snapshot = new Snapshot(Integer.parseInt(entry.snapshot().substring(0, sep)), entry.snapshot().substring(sep + 1));
+            // Skip moves played before this snapshot.
+            firstPly = Math.min(snapshot.ply(), entry.moves().length / PackedMoves.MOVE_SIZE);
+        }
+        return new StoredBoard(entry.currentSquare(), entry.error(), PackedMoves.decode(entry.moves(), firstPly),
+                firstPly, snapshot, entry.version(), entry.result());
+    }
+
+    /**
+     * Read the raw state of a board, returning <code>null</code> if this board is not stored using this layout.
+     */
+    BoardArchive.Entry readEntry(String id) {
+        final var key = bytes(key(id));
+        return toEntry(id, redis.execute((RedisCallback<List<byte[]>>) conn -> conn.hashCommands().hMGet(key, FIELDS)));
+    }
+
+    private static BoardArchive.Entry toEntry(String id, List<byte[]> values) {
+        if (values == null || values.stream().allMatch(Objects::isNull)) {
+            return null;
+        }
+        final var version = string(values.get(4));
+        return new BoardArchive.Entry(id, version == null ? 0 : Long.parseLong(version),
+                string(values.get(0)), string(values.get(1)),
+                values.get(2) == null ? new byte[0] : values.get(2),
+                string(values.get(3)), string(values.get(5)));
+    }
+
+    private boolean restore(String id) {
+        final BoardArchive.Entry entry;
+        try {
+            entry = archive.get(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived board: " + id, e);
+        }
+        if (entry == null) {
+            return false;
+        }
+        // This board may be restored by concurrent requests: only the first one writes the board,
+        // then every request reads the restored board.
+        logger.atDebug().log("Restoring archived board: {}", id);
+        redis.execute(RESTORE_SCRIPT, RedisSerializer.byteArray(), NUMBER, keys(id),
+                bytes(entry.currentSquare()), bytes(entry.error()), entry.moves(),
+                bytes(entry.moves().length / PackedMoves.MOVE_SIZE), bytes(entry.snapshot()), bytes(entry.version()),
+                bytes(entry.result()), bytes(System.currentTimeMillis()), bytes(id));
+        return true;
+    }
+
+    /**
+     * Find boards which were not updated since a given time (in milliseconds), starting with the oldest ones.
+     * Only finished boards are returned if <code>finished</code> is set.
+     */
+    List<String> findIdleBoards(boolean finished, long updatedBefore, int count) {
+        final var ids = redis.opsForZSet().rangeByScore(finished ? FINISHED_KEY : ACTIVITY_KEY, 0, updatedBefore, 0, count);
+        return ids == null ? List.of() : List.copyOf(ids);
+    }
+
+    /**
+     * Remove a board from Redis, unless it was updated since this version was read.
+     */
+    boolean delete(String id, long version) {
+        final var deleted = redis.execute(DELETE_SCRIPT, RedisSerializer.byteArray(), NUMBER, keys(id),
+                bytes(version), bytes(id));
+        return deleted != null && deleted == 1;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Compact move encoding: each move takes 16 bits (2 bytes, big-endian),
+ * with the source square (6 bits), the target square (6 bits) and the promotion piece (4 bits).
+ */
+class PackedMoves {
+    static final int MOVE_SIZE = 2;
+    private static final String PROMOTIONS = " nbrq";
+
+    private PackedMoves() {
+    }
+
+    /**
+     * Encode moves using UCI notation.
+     */
+    static byte[] encode(List<String> moves) {
+        final var packed = new byte[moves.size() * MOVE_SIZE];
+        for (int i = 0; i < moves.size(); ++i) {
+            encodeMove(moves.get(i), packed, i * MOVE_SIZE);
+        }
+        return packed;
+    }
+
+    static void encodeMove(String move, byte[] packed, int offset) {
+        if (move.length() != 4 && move.length() != 5) {
+            throw new IllegalArgumentException("Invalid UCI move: " + move);
+        }
+        final int promotion = move.length() == 5 ? PROMOTIONS.indexOf(move.charAt(4)) : 0;
+        if (promotion < 1 && move.length() == 5) {
+            throw new IllegalArgumentException("Invalid UCI move: " + move);
+        }
+        final int value = square(move, 0) << 10 | square(move, 2) << 4 | promotion;
+        packed[offset] = (byte) (value >>> 8);
+        packed[offset + 1] = (byte) value;
+    }
+
+    /**
+     * Decode moves starting at a given ply: moves are converted to UCI notation only when they are accessed.
+     */
+    static List<String> decode(byte[] packed, int firstPly) {
+        final int size = packed.length / MOVE_SIZE - firstPly;
+        if (size < 0 || packed.length % MOVE_SIZE != 0) {
+            throw new IllegalArgumentException("Invalid packed moves: " + packed.length + " bytes");
+        }
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return decodeMove(packed, (firstPly + index) * MOVE_SIZE);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    static String decodeMove(byte[] packed, int offset) {
+        final int value = (packed[offset] & 0xff) << 8 | (packed[offset + 1] & 0xff);
+        final var buf = new StringBuilder(5);
+        appendSquare(buf, value >>> 10);
+        appendSquare(buf, (value >>> 4) & 63);
+        final int promotion = value & 15;
+        if (promotion != 0) {
+            buf.append(PROMOTIONS.charAt(promotion));
+        }
+        return buf.toString();
+    }
+
+    private static int square(String move, int index) {
+        final int file = move.charAt(index) - 'a';
+        final int rank = move.charAt(index + 1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            throw new IllegalArgumentException("Invalid UCI move: " + move);
+        }
+        return rank * 8 + file;
+    }
+
+    private static void appendSquare(StringBuilder buf, int square) {
+        buf.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+}
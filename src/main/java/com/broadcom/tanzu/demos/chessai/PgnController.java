@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+@Controller
+@RegisterReflectionForBinding(PgnTransfer.ImportResult.class)
+class PgnController {
+    private static final String PGN_CONTENT_TYPE = "application/x-chess-pgn;charset=UTF-8";
+    private final PgnTransfer pgnTransfer;
+    private final boolean enabled;
+
+    // Exporting or importing games goes through all stored games, or creates lots of boards:
+    // these endpoints are public, so they are disabled unless explicitly enabled.
+
+    PgnController(PgnTransfer pgnTransfer, @Value("${app.chess.pgn.enabled:false}") boolean enabled) {
+        this.pgnTransfer = pgnTransfer;
+        this.enabled = enabled;
+    }
+
+    @GetMapping("/chess/games.pgn")
+    void exportGames(HttpServletResponse resp) throws IOException {
+        if (!enabled) {
+            resp.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        // Games are written straight to the response as they are read from Redis.
+        resp.setContentType(PGN_CONTENT_TYPE);
+        resp.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("games.pgn").build().toString());
+        final var out = new BufferedWriter(new OutputStreamWriter(resp.getOutputStream(), StandardCharsets.UTF_8), 64 * 1024);
+        pgnTransfer.exportGames(out);
+    }
+
+    @PostMapping("/chess/games.pgn")
+    ResponseEntity<PgnTransfer.ImportResult> importGames(InputStream body) {
+        if (!enabled) {
+            return ResponseEntity.notFound().build();
+        }
+        // The request body is parsed as it is read: the whole file is never loaded in memory.
+        return ResponseEntity.ok(pgnTransfer.importGames(body));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import io.github.wolfraam.chessgame.ChessGame;
+import io.github.wolfraam.chessgame.pgn.PGNImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Component
+class PgnTransfer {
+    private final Logger logger = LoggerFactory.getLogger(PgnTransfer.class);
+    private final BoardRepository repo;
+    private final int batchSize;
+    private final long maxGames;
+
+    // Games are moved in and out of the store in batches, using a single round trip per batch:
+    // at most one batch of games is kept in memory, whatever the number of games.
+    // The number of games created by a single import is capped.
+
+    PgnTransfer(BoardRepository repo, @Value("${app.chess.pgn.batch-size:100}") int batchSize,
+                @Value("${app.chess.pgn.max-games:10000}") long maxGames) {
+        this.repo = repo;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxGames = Math.max(0, maxGames);
+    }
+
+    /**
+     * Write all stored games using PGN, returning the number of games.
+     * Only boards found in Redis using the current storage layout are exported:
+     * archived boards and boards stored using a previous layout (until they are updated) are left out.
+     */
+    long exportGames(Writer out) throws IOException {
+        final var pgn = new PgnWriter(out);
+        final long[] games = {0};
+        try {
+            repo.forEach(batchSize, board -> {
+                try {
+                    pgn.write(board.game());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                games[0] += 1;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        logger.atDebug().log("Exported {} games", games[0]);
+        return games[0];
+    }
+
+    /**
+     * Create a board for each game read from a PGN stream.
+     * Games which cannot be parsed, or which do not start from the initial position, are skipped.
+     * The stream is no longer read once the max number of games is reached: the result is then truncated.
+     */
+    ImportResult importGames(InputStream in) {
+        final var batch = new ArrayList<ChessGame>(batchSize);
+        final long[] counts = {0, 0};
+        final boolean[] truncated = {false};
+        final var importer = new PGNImporter();
+        importer.setOnGame(game -> {
+            // Games already buffered by the importer are still parsed: they are ignored.
+            if (counts[0] + counts[1] + batch.size() >= maxGames) {
+                truncated[0] = true;
+                return;
+            }
+            batch.add(game);
+            if (batch.size() >= batchSize) {
+                saveBatch(batch, counts);
+            }
+        });
+        importer.setOnError((context, e) -> {
+            if (counts[0] + counts[1] + batch.size() >= maxGames) {
+                truncated[0] = true;
+                return;
+            }
+            logger.atDebug().log("Skipping invalid PGN game: {}", context, e);
+            counts[1] += 1;
+        });
+        importer.run(new FilterInputStream(in) {
+            // The importer cannot be stopped: the stream ends as soon as the max number of games is reached.
+            @Override
+            public int read() throws IOException {
+                return truncated[0] ? -1 : super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return truncated[0] ? -1 : super.read(b, off, len);
+            }
+        });
+        saveBatch(batch, counts);
+        logger.atInfo().log("Imported {} games ({} skipped{})", counts[0], counts[1],
+                truncated[0] ? ", truncated after " + maxGames + " games" : "");
+        return new ImportResult(counts[0], counts[1], truncated[0]);
+    }
+
+    private void saveBatch(List<ChessGame> batch, long[] counts) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        final var saved = repo.saveAll(batch).stream().filter(Objects::nonNull).count();
+        counts[0] += saved;
+        counts[1] += batch.size() - saved;
+        batch.clear();
+    }
+
+    /**
+     * Import summary: <code>truncated</code> is set when the max number of games was reached,
+     * in which case the remaining games were not read.
+     */
+    record ImportResult(long imported, long skipped, boolean truncated) {
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import io.github.wolfraam.chessgame.ChessGame;
+import io.github.wolfraam.chessgame.notation.NotationType;
+import io.github.wolfraam.chessgame.result.ChessGameResultType;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Write games using the PGN export format, one game after the other.
+ * Nothing is buffered by this class, and games are left untouched.
+ */
+class PgnWriter {
+    private static final int MAX_LINE_LENGTH = 80;
+    private final Writer out;
+
+    PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Write a game. Board ids are never written: anybody knowing a board id may play on this board.
+     */
+    void write(ChessGame game) throws IOException {
+        final var result = result(game.getGameResultType());
+        // Tags from the Seven Tag Roster always come first, in this order.
+        tag("Event", "Chess AI game");
+        tag("Site", "?");
+        tag("Date", "????.??.??");
+        tag("Round", "-");
+        tag("White", "Human");
+        tag("Black", "AI");
+        tag("Result", result);
+        final var initialFen = game.getInitialFen();
+        if (!ChessGame.STANDARD_INITIAL_FEN.equals(initialFen)) {
+            tag("SetUp", "1");
+            tag("FEN", initialFen);
+        }
+        out.write('\n');
+
+        final var fields = initialFen.split(" ");
+        int moveNumber = Integer.parseInt(fields[5]);
+        boolean white = "w".equals(fields[1]);
+        int lineLength = 0;
+        final var token = new StringBuilder(16);
+        for (final var san : game.getNotationList(NotationType.SAN)) {
+            token.setLength(0);
+            if (white) {
+                token.append(moveNumber).append(". ");
+            } else if (lineLength == 0) {
+                // The first move is a Black move.
+                token.append(moveNumber).append("... ");
+            }
+            token.append(san);
+            lineLength = append(token, lineLength);
+            if (!white) {
+                moveNumber += 1;
+            }
+            white = !white;
+        }
+        append(result, lineLength);
+        out.write("\n\n");
+    }
+
+    private int append(CharSequence token, int lineLength) throws IOException {
+        // Move numbers are kept on the same line as the following move.
+        if (lineLength > 0 && lineLength + 1 + token.length() > MAX_LINE_LENGTH) {
+            out.write('\n');
+            lineLength = 0;
+        } else if (lineLength > 0) {
+            out.write(' ');
+            lineLength += 1;
+        }
+        out.append(token);
+        return lineLength + token.length();
+    }
+
+    private void tag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        out.write(value.replace("\\", "\\\\").replace("\"", "\\\""));
+        out.write("\"]\n");
+    }
+
+    private static String result(ChessGameResultType result) {
+        if (result == null) {
+            return "*";
+        }
+        return switch (result) {
+            case WHITE_WINS -> "1-0";
+            case BLACK_WINS -> "0-1";
+            case DRAW -> "1/2-1/2";
+        };
+    }
+}
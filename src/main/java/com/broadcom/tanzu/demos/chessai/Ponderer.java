@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.broadcom.tanzu.demos.chessai.engine.Moves;
+import com.broadcom.tanzu.demos.chessai.engine.OpeningBook;
+import com.broadcom.tanzu.demos.chessai.engine.Position;
+import com.broadcom.tanzu.demos.chessai.engine.Search;
+import com.broadcom.tanzu.demos.chessai.engine.SearchLimits;
+import com.broadcom.tanzu.demos.chessai.engine.SearchResult;
+import com.broadcom.tanzu.demos.chessai.engine.Tablebase;
+import com.broadcom.tanzu.demos.chessai.engine.TranspositionTable;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.wolfraam.chessgame.ChessGame;
+import io.github.wolfraam.chessgame.board.Side;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+class Ponderer implements AutoCloseable {
+    private final Logger logger = LoggerFactory.getLogger(Ponderer.class);
+    private final boolean enabled;
+    private final OpeningBook book;
+    private final Tablebase tablebase;
+    private final SearchLimits limits;
+    private final SearchLimits rankLimits;
+    private final int maxReplies;
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<Search> searches;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<SearchResult>> running = new ConcurrentHashMap<>();
+    private final Cache<Long, SearchResult> results;
+    private final Timer ponderTimer;
+    private final Counter rejected;
+
+    // While the player is thinking, the engine searches the best answers to the replies the player
+    // is most likely to play (starting with moves of the selected piece). When the player moves,
+    // the AI move is taken from these results: if the search for this reply is still running,
+    // the AI waits for it instead of starting over.
+    // Searches which are not reused are not wasted either, since they fill the shared transposition table.
+    // Results are looked up using the position history (see Position.historyKey()), not only the position:
+    // the same position reached with a different history may be a draw by repetition.
+    // Pondering runs on its own threads, which set the CPU budget for pondering across all boards:
+    // pondering is cancelled as soon as the position changes.
+
+    Ponderer(TranspositionTable table, OpeningBook book, Tablebase tablebase, MeterRegistry meterRegistry,
+             @Value("${app.chess.ponder.enabled:false}") boolean enabled,
+             @Value("${app.chess.ponder.threads:1}") int threads,
+             @Value("${app.chess.ponder.max-replies:4}") int maxReplies,
+             @Value("${app.chess.ponder.rank-depth:2}") int rankDepth,
+             @Value("${app.chess.ponder.queue-capacity:100}") int queueCapacity,
+             @Value("${app.chess.engine.max-depth:64}") int maxDepth,
+             @Value("${app.chess.engine.time-limit:1s}") Duration timeLimit) {
+        this.enabled = enabled && threads > 0 && maxReplies > 0;
+        this.book = book;
+        this.tablebase = tablebase;
+        // Pondering uses the same limits as the engine, so that a result can be played as is.
+        this.limits = new SearchLimits(maxDepth, timeLimit);
+        this.rankLimits = new SearchLimits(rankDepth, timeLimit);
+        this.maxReplies = maxReplies;
+        this.searches = ThreadLocal.withInitial(() -> new Search(table, tablebase));
+        this.results = Caffeine.newBuilder().maximumSize(10_000).expireAfterWrite(Duration.ofMinutes(10)).build();
+        if (this.enabled) {
+            final var threadCount = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                final var t = new Thread(r, "ponder-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            logger.atInfo().log("Pondering enabled: up to {} replies per position, using {} threads", maxReplies, threads);
+        } else {
+            this.executor = null;
+        }
+
+        this.ponderTimer = Timer.builder("chess.engine.ponder.search")
+                .description("Time spent searching a likely reply while the player is thinking")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("chess.engine.ponder.rejected")
+                .description("Pondering requests rejected because all ponder threads were busy")
+                .register(meterRegistry);
+        Gauge.builder("chess.engine.ponder.sessions", sessions, Map::size)
+                .description("Number of boards being pondered").register(meterRegistry);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start pondering replies for a game where the player is to move,
+     * replacing any pondering for the same board.
+     * Moves from the selected square (if any) are searched first.
+     */
+    void ponder(String boardId, ChessGame game, String selectedSquare) {
+        if (!enabled) {
+            return;
+        }
+        if (game.getGameResultType() != null || !game.getSideToMove().equals(Side.WHITE)) {
+            cancel(boardId);
+            return;
+        }
+        final var moves = ChessGameUtils.getUciMoves(game);
+        final var previous = sessions.get(boardId);
+        if (previous != null && previous.moves().size() == moves.size()
+                && (selectedSquare == null || selectedSquare.equals(previous.selectedSquare()))) {
+            // Already pondering this position: the player may select another piece later on.
+            return;
+        }
+
+        final var session = new Session(boardId, game.getInitialFen(), moves, selectedSquare);
+        final var replaced = sessions.put(boardId, session);
+        if (replaced != null) {
+            replaced.stop().set(true);
+        }
+        try {
+            executor.execute(() -> run(session));
+        } catch (RejectedExecutionException e) {
+            sessions.remove(boardId, session);
+            rejected.increment();
+            logger.atDebug().log("Unable to ponder board {}: all ponder threads are busy", boardId);
+        }
+    }
+
+    /**
+     * Stop pondering once the player has played a move: the search for this move is left running,
+     * so that its result can be used for the AI move.
+     */
+    void onMove(String boardId, String move) {
+        if (!enabled) {
+            return;
+        }
+        final var session = sessions.remove(boardId);
+        if (session == null) {
+            return;
+        }
+        session.finishing().set(true);
+        if (!move.equals(session.currentReply().get())) {
+            session.stop().set(true);
+        }
+    }
+
+    void cancel(String boardId) {
+        if (!enabled) {
+            return;
+        }
+        final var session = sessions.remove(boardId);
+        if (session != null) {
+            session.stop().set(true);
+        }
+    }
+
+    /**
+     * Get the pondering result for a position, waiting for the search to complete if it is running.
+     */
+    Pondered take(Position pos) {
+        if (!enabled) {
+            return new Pondered(Outcome.OFF, null);
+        }
+        final long key = pos.historyKey();
+        final var result = results.getIfPresent(key);
+        if (isPlayable(pos, result)) {
+            return new Pondered(Outcome.HIT, result);
+        }
+        final var future = running.get(key);
+        if (future != null) {
+            final var partial = future.join();
+            if (isPlayable(pos, partial)) {
+                return new Pondered(Outcome.CONTINUED, partial);
+            }
+        }
+        return new Pondered(Outcome.MISS, null);
+    }
+
+    private static boolean isPlayable(Position pos, SearchResult result) {
+        // Positions are looked up using their hash: make sure this move can be played.
+        return result != null && result.bestMove() != null && pos.parseMove(result.bestMove()) != Moves.NONE;
+    }
+
+    private void run(Session session) {
+        try {
+            if (session.stop().get()) {
+                return;
+            }
+            final var pos = Position.fromFen(session.initialFen());
+            for (final var move : session.moves()) {
+                pos.play(move);
+            }
+            for (final var reply : rankReplies(pos, session)) {
+                if (session.stop().get() || session.finishing().get()) {
+                    break;
+                }
+                final var next = pos.copy();
+                next.play(reply);
+                session.currentReply().set(reply);
+                search(next, session);
+            }
+        } catch (Exception e) {
+            logger.atWarn().log("Failed to ponder board: {}", session.boardId(), e);
+        } finally {
+            sessions.remove(session.boardId(), session);
+        }
+    }
+
+    private void search(Position pos, Session session) {
+        final long key = pos.historyKey();
+        if (results.getIfPresent(key) != null) {
+            return;
+        }
+        final var future = new CompletableFuture<SearchResult>();
+        if (running.putIfAbsent(key, future) != null) {
+            // This position is already pondered for another board.
+            return;
+        }
+        SearchResult result = null;
+        try {
+            final var searchResult = ponderTimer.record(() -> searches.get().search(pos, limits, session.stop()));
+            // A search which was stopped is incomplete: it cannot be played as is.
+            if (!session.stop().get() && searchResult.bestMove() != null) {
+                results.put(key, searchResult);
+                result = searchResult;
+            }
+        } finally {
+            running.remove(key, future);
+            future.complete(result);
+        }
+    }
+
+    private List<String> rankReplies(Position pos, Session session) {
+        // Replies are ranked with a shallow search: moves from the selected square come first.
+        // Replies which are answered from the opening book or the tablebase are not worth pondering.
+        final var search = searches.get();
+        final var replies = new ArrayList<RankedReply>();
+        for (final var move : pos.legalMoves()) {
+            final var next = pos.copy();
+            next.play(move);
+            if (book.probe(next, ThreadLocalRandom.current()) != Moves.NONE || tablebase.bestMove(next) != Moves.NONE) {
+                continue;
+            }
+            final int score = -search.search(next, rankLimits, session.stop()).score();
+            final boolean selected = session.selectedSquare() != null && move.startsWith(session.selectedSquare());
+            replies.add(new RankedReply(move, selected, score));
+        }
+        return replies.stream()
+                .sorted(Comparator.comparing(RankedReply::selected).reversed()
+                        .thenComparing(Comparator.comparingInt(RankedReply::score).reversed()))
+                .limit(maxReplies)
+                .map(RankedReply::move)
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            sessions.values().forEach(s -> s.stop().set(true));
+            executor.shutdownNow();
+        }
+    }
+
+    enum Outcome {
+        // Pondering is disabled.
+        OFF,
+        // The AI move was found while the player was thinking.
+        HIT,
+        // The AI move was being searched when the player moved.
+        CONTINUED,
+        // The player played a move which was not pondered.
+        MISS
+    }
+
+    record Pondered(Outcome outcome, SearchResult result) {
+    }
+
+    private record Session(String boardId, String initialFen, List<String> moves, String selectedSquare,
+                           AtomicBoolean stop, AtomicBoolean finishing, AtomicReference<String> currentReply) {
+        Session(String boardId, String initialFen, List<String> moves, String selectedSquare) {
+            this(boardId, initialFen, moves, selectedSquare, new AtomicBoolean(), new AtomicBoolean(), new AtomicReference<>());
+        }
+    }
+
+    private record RankedReply(String move, boolean selected, int score) {
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RedisBoardEvents implements BoardEvents, BoardSubscriptions.Listener, MessageListener, AutoCloseable {
+    /**
+     * Channel prefix used to publish board events, as messages such as "<instance> <timestamp> <json>".
+     */
+    static final String CHANNEL_PREFIX = "chess::events::";
+
+    private final Logger logger = LoggerFactory.getLogger(RedisBoardEvents.class);
+    private final String instanceId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer container;
+    private final SimpMessagingTemplate stomp;
+    private final ObjectMapper objectMapper;
+    private final BoardSubscriptions subscriptions;
+    private final AtomicInteger channels = new AtomicInteger();
+    private final String updateBoardEvent;
+    // Subscribing to a channel waits for Redis to confirm the subscription:
+    // this is done in the background, one channel at a time so that subscriptions are kept in order.
+    private final ExecutorService subscriber = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("board-events").daemon().factory());
+    private final Counter published;
+    private final Counter received;
+    private final Timer fanoutTimer;
+
+    // Each board has its own channel: an instance only listens to channels for boards
+    // with clients connected to this instance, so that it does not receive events for other boards.
+    // Events are sent right away to local clients, and then relayed to other instances.
+
+    RedisBoardEvents(StringRedisTemplate redis, RedisMessageListenerContainer container, SimpMessagingTemplate stomp,
+                     ObjectMapper objectMapper, BoardSubscriptions subscriptions, MeterRegistry meterRegistry) {
+        this.redis = redis;
+        this.container = container;
+        this.stomp = stomp;
+        this.objectMapper = objectMapper;
+        this.subscriptions = subscriptions;
+        try {
+            this.updateBoardEvent = objectMapper.writeValueAsString(new BoardController.ChessEvent("UPDATE_BOARD"));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize board event", e);
+        }
+        this.published = Counter.builder("chess.events.published")
+                .description("Board events published to other instances").register(meterRegistry);
+        this.received = Counter.builder("chess.events.received")
+                .description("Board events received from other instances").register(meterRegistry);
+        this.fanoutTimer = Timer.builder("chess.events.fanout")
+                .description("Time between publishing a board event and sending it to clients of another instance")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("chess.events.channels", channels, AtomicInteger::get)
+                .description("Number of board channels this instance listens to").register(meterRegistry);
+        subscriptions.addListener(this);
+    }
+
+    @Override
+    public void send(String boardId, Object event) {
+        final String json;
+        try {
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize event for board: " + boardId, e);
+        }
+        if (subscriptions.hasSubscribers(boardId)) {
+            deliver(boardId, json);
+        }
+        redis.convertAndSend(CHANNEL_PREFIX + boardId, instanceId + " " + System.currentTimeMillis() + " " + json);
+        published.increment();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        final var body = new String(message.getBody(), StandardCharsets.UTF_8);
+        final int sep1 = body.indexOf(' ');
+        final int sep2 = body.indexOf(' ', sep1 + 1);
+        if (sep1 == instanceId.length() && body.startsWith(instanceId)) {
+            // This event was published by this instance: local clients already got it.
+            return;
+        }
+        received.increment();
+        final var boardId = new String(message.getChannel(), StandardCharsets.UTF_8).substring(CHANNEL_PREFIX.length());
+        deliver(boardId, body.substring(sep2 + 1));
+        // Instance clocks may drift a bit: this is good enough to monitor fan-out latency.
+        final long publishedAt = Long.parseLong(body, sep1 + 1, sep2, 10);
+        fanoutTimer.record(Math.max(0, System.currentTimeMillis() - publishedAt), TimeUnit.MILLISECONDS);
+    }
+
+    private void deliver(String boardId, String json) {
+        // The event is already serialized: send it as is to STOMP clients.
+        final var headers = SimpMessageHeaderAccessor.create();
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        stomp.send(BoardSubscriptions.TOPIC_PREFIX + boardId,
+                MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), headers.getMessageHeaders()));
+    }
+
+    @Override
+    public void onFirstSubscriber(String boardId) {
+        subscriber.execute(() -> {
+            logger.atDebug().log("Listening to events for board: {}", boardId);
+            container.addMessageListener(this, new ChannelTopic(CHANNEL_PREFIX + boardId));
+            channels.incrementAndGet();
+            // Events published by other instances until now were missed: local clients fetch the board again.
+            deliver(boardId, updateBoardEvent);
+        });
+    }
+
+    @Override
+    public void onLastSubscriber(String boardId) {
+        subscriber.execute(() -> {
+            logger.atDebug().log("No longer listening to events for board: {}", boardId);
+            container.removeMessageListener(this, new ChannelTopic(CHANNEL_PREFIX + boardId));
+            channels.decrementAndGet();
+        });
+    }
+
+    @Override
+    public void close() {
+        subscriber.shutdownNow();
+    }
+}
@@ -16,10 +16,18 @@
 
 package com.broadcom.tanzu.demos.chessai;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
 @Configuration(proxyBeanMethods = false)
 class RedisConfig {
@@ -27,4 +35,37 @@ class RedisConfig {
     StringRedisTemplate redisTemplate(RedisConnectionFactory redisConnectionFactory) {
         return new StringRedisTemplate(redisConnectionFactory);
     }
+
+    @Bean
+    BoardArchive boardArchive(MeterRegistry meterRegistry,
+                              @Value("${app.chess.archive.location:data/boards.archive}") Path location) throws IOException {
+        return new BoardArchive(location, meterRegistry);
+    }
+
+    @Bean
+    BoardStorage boardStorage(StringRedisTemplate redis, BoardArchive archive,
+                              @Value("${app.chess.storage.layout:packed}") BoardStorage.Layout layout) {
+        // Previous layouts are kept around to compare layouts, and to read boards
+        // which were created before switching to a new layout.
+        final var legacy = new KeysBoardStorage(redis);
+        return switch (layout) {
+            case KEYS -> legacy;
+            case HASH -> new HashBoardStorage(redis, legacy);
+            case PACKED -> new PackedBoardStorage(redis, new HashBoardStorage(redis, legacy), archive);
+        };
+    }
+
+    @Bean
+    RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                BoardCache cache) {
+        // Listen to board updates, which may come from other instances.
+        final var container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            final var update = new String(message.getBody(), StandardCharsets.UTF_8);
+            final var sep = update.lastIndexOf(' ');
+            cache.onBoardUpdated(update.substring(0, sep), Long.parseLong(update.substring(sep + 1)));
+        }, new ChannelTopic(HashBoardStorage.UPDATES_CHANNEL));
+        return container;
+    }
 }
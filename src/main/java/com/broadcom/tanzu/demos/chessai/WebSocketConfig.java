@@ -16,7 +16,14 @@
 
 package com.broadcom.tanzu.demos.chessai;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -36,4 +43,18 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
     }
+
+    @Bean
+    BoardEvents boardEvents(@Value("${app.chess.events.broadcast:redis}") BoardEvents.Broadcast broadcast,
+                            SimpMessagingTemplate stomp, StringRedisTemplate redis,
+                            RedisMessageListenerContainer redisMessageListenerContainer,
+                            ObjectMapper objectMapper, BoardSubscriptions subscriptions, MeterRegistry meterRegistry) {
+        // The STOMP broker only knows about clients connected to this instance:
+        // board events are relayed to other instances using Redis.
+        return switch (broadcast) {
+            case LOCAL -> new LocalBoardEvents(stomp);
+            case REDIS -> new RedisBoardEvents(redis, redisMessageListenerContainer, stomp,
+                    objectMapper, subscriptions, meterRegistry);
+        };
+    }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+/**
+ * Precomputed attack tables: sliding pieces use magic bitboards.
+ */
+final class Attacks {
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    /**
+     * Squares attacked by a pawn of a given side standing on a square.
+     */
+    static final long[][] PAWN = new long[2][64];
+
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    // Magic numbers were found with a trial-and-error search (random sparse numbers, until
+    // all occupancy subsets of a square map to distinct slots or to the same attack set).
+    private static final long[] ROOK_MAGICS = {
+            0x2080002080400010L, 0x00C0002001401000L, 0x2100110008402002L, 0x0880080081041000L,
+            0x0200020020041008L, 0x2300040008010012L, 0x0C00283004008201L, 0x0180010000407A80L,
+            0x0168800080400020L, 0x0010400040201000L, 0x1001002001001048L, 0x1001002408100100L,
+            0x0801000408010012L, 0x4001000209000400L, 0x08A20004C8020001L, 0x2002801145002280L,
+            0x0080860021004200L, 0x001000C009402002L, 0x00B0002004002800L, 0x100A808010020800L,
+            0x8101010008000410L, 0x0244008002000480L, 0x0000040010810208L, 0x2000020000448534L,
+            0x4104400480008033L, 0x0000810100204000L, 0x0440430900200010L, 0x4600240900100100L,
+            0x0060080080040080L, 0x0001000300080400L, 0x0004084400011002L, 0x0023040200008041L,
+            0x0580050043002080L, 0x0400804002802008L, 0x0001002001004010L, 0x1000200901001000L,
+            0x4410800801800C00L, 0xA012003806001004L, 0x0020100104008802L, 0x0004808402000041L,
+            0x0010400170898000L, 0x0080500020004004L, 0x1040408012020020L, 0x8010040008004040L,
+            0x2001080100110004L, 0x0000020004008080L, 0x0021010810040002L, 0x0800008C43020024L,
+            0x0000800021005100L, 0x0070201040008080L, 0x0000D04282006A00L, 0x0010014400080240L,
+            0x0001080110050100L, 0x0012000810240600L, 0x0402000801040200L, 0x028100108A004100L,
+            0x0050800300102045L, 0x8208210040120882L, 0x8010600101183441L, 0x020B000910006045L,
+            0x0241001002480005L, 0x0081000400880241L, 0x0000009008024124L, 0x0048122980410402L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x8008029802002200L, 0x4291040808802804L, 0x0008180040800300L, 0x00088A0202AA1050L,
+            0x000410A800000000L, 0x0009100804040009L, 0x0801140121080011L, 0xA040808400824000L,
+            0x000008A004040048L, 0x0600200440808114L, 0x2020410401204403L, 0x000404106200C001L,
+            0x0100011040800026L, 0x00080088200A0820L, 0x0008004804642080L, 0x4000004402981800L,
+            0x0710002220020088L, 0x2010808202020402L, 0x8010080844002820L, 0x800C000124028000L,
+            0x0002000422010040L, 0x6438402200422000L, 0x0010A1004C0C2000L, 0x000A00E109010190L,
+            0x08022010400414C0L, 0x8428022220240101L, 0x0008088004040010L, 0x0008080000220020L,
+            0x0421010000104000L, 0x219102082500A000L, 0x0018008042120150L, 0x02108020A09C0402L,
+            0x301C202000890208L, 0xA004022000080100L, 0x100C024100881200L, 0x8000080800460A00L,
+            0x1004010804440040L, 0x420C920080041000L, 0x05018C0114440100L, 0x00040100308A0080L,
+            0x0020821042801000L, 0x0202026120001C02L, 0x0002001044000800L, 0x20AA844200800801L,
+            0x0000012011001200L, 0x0860209008808042L, 0x0008100080A80200L, 0x0808020050420201L,
+            0x00051C0104C00000L, 0x0000840108820022L, 0x000A461842080004L, 0x2400400914880002L,
+            0x00040040102481B4L, 0x2104A14202020060L, 0x0004081041020060L, 0x00A0840082005100L,
+            0x0000412210101482L, 0x0108504208042210L, 0x000020044C040405L, 0x4140050206051401L,
+            0x0122008051820200L, 0x0082800428109100L, 0x9104042454440401L, 0x141E200C00820848L
+    };
+
+    private static final Magics ROOK = new Magics(ROOK_DIRECTIONS, ROOK_MAGICS);
+    private static final Magics BISHOP = new Magics(BISHOP_DIRECTIONS, BISHOP_MAGICS);
+
+    static {
+        final int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        final int[][] kingSteps = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+        for (int sq = 0; sq < 64; ++sq) {
+            KNIGHT[sq] = steps(sq, knightSteps);
+            KING[sq] = steps(sq, kingSteps);
+            PAWN[Position.WHITE][sq] = steps(sq, new int[][]{{-1, 1}, {1, 1}});
+            PAWN[Position.BLACK][sq] = steps(sq, new int[][]{{-1, -1}, {1, -1}});
+        }
+    }
+
+    private Attacks() {
+    }
+
+    static long rook(int sq, long occupied) {
+        return ROOK.attacks(sq, occupied);
+    }
+
+    static long bishop(int sq, long occupied) {
+        return BISHOP.attacks(sq, occupied);
+    }
+
+    static long queen(int sq, long occupied) {
+        return ROOK.attacks(sq, occupied) | BISHOP.attacks(sq, occupied);
+    }
+
+    private static long steps(int sq, int[][] steps) {
+        long bb = 0;
+        for (final var step : steps) {
+            final int file = (sq & 7) + step[0];
+            final int rank = (sq >>> 3) + step[1];
+            if (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                bb |= 1L << (rank * 8 + file);
+            }
+        }
+        return bb;
+    }
+
+    private static long slidingAttacks(int sq, long occupied, int[][] directions) {
+        long bb = 0;
+        for (final var dir : directions) {
+            int file = (sq & 7) + dir[0];
+            int rank = (sq >>> 3) + dir[1];
+            while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                final long target = 1L << (rank * 8 + file);
+                bb |= target;
+                if ((occupied & target) != 0) {
+                    break;
+                }
+                file += dir[0];
+                rank += dir[1];
+            }
+        }
+        return bb;
+    }
+
+    private static long relevantOccupancy(int sq, int[][] directions) {
+        // Squares on the edge of each ray never block anything: they are left out of the mask.
+        long bb = 0;
+        for (final var dir : directions) {
+            int file = (sq & 7) + dir[0];
+            int rank = (sq >>> 3) + dir[1];
+            while (file + dir[0] >= 0 && file + dir[0] < 8 && rank + dir[1] >= 0 && rank + dir[1] < 8) {
+                bb |= 1L << (rank * 8 + file);
+                file += dir[0];
+                rank += dir[1];
+            }
+        }
+        return bb;
+    }
+
+    private static final class Magics {
+        private final long[] masks = new long[64];
+        private final long[] magics;
+        private final int[] shifts = new int[64];
+        private final int[] offsets = new int[64];
+        private final long[] table;
+
+        Magics(int[][] directions, long[] magics) {
+            int size = 0;
+            for (int sq = 0; sq < 64; ++sq) {
+                masks[sq] = relevantOccupancy(sq, directions);
+                shifts[sq] = 64 - Long.bitCount(masks[sq]);
+                offsets[sq] = size;
+                size += 1 << Long.bitCount(masks[sq]);
+            }
+            this.magics = magics;
+            this.table = new long[size];
+
+            for (int sq = 0; sq < 64; ++sq) {
+                // Enumerate all subsets of the mask (Carry-Rippler trick).
+                final long mask = masks[sq];
+                long occupied = 0;
+                do {
+                    final int index = offsets[sq] + (int) ((occupied * magics[sq]) >>> shifts[sq]);
+                    final long attacks = slidingAttacks(sq, occupied, directions);
+                    if (table[index] != 0 && table[index] != attacks) {
+                        throw new IllegalStateException("Invalid magic number for square " + Moves.squareName(sq));
+                    }
+                    table[index] = attacks;
+                    occupied = (occupied - mask) & mask;
+                } while (occupied != 0);
+            }
+        }
+
+        long attacks(int sq, long occupied) {
+            return table[offsets[sq] + (int) (((occupied & masks[sq]) * magics[sq]) >>> shifts[sq])];
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import static com.broadcom.tanzu.demos.chessai.engine.Position.*;
+
+/**
+ * Static evaluation: material and piece-square tables, with a separate king table for the endgame.
+ * Scores are given in centipawns, from the point of view of the side to move.
+ */
+final class Evaluation {
+    static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    // Piece-square tables are written from White's point of view, starting with rank 8
+    // (see https://www.chessprogramming.org/Simplified_Evaluation_Function).
+    private static final int[][] TABLES = {
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0,
+            },
+            {
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+            },
+            {
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+            },
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0,
+            },
+            {
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+            },
+            {
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20,
+            },
+    };
+    private static final int[] KING_ENDGAME_TABLE = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50,
+    };
+
+    // Game phase: 24 with all pieces on the board, 0 once only kings and pawns are left.
+    private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+    private static final int MAX_PHASE = 24;
+
+    private Evaluation() {
+    }
+
+    static int evaluate(Position pos) {
+        int score = 0;
+        int phase = 0;
+        for (int type = PAWN; type < KING; ++type) {
+            final var table = TABLES[type];
+            for (long bb = pos.pieces[type]; bb != 0; bb &= bb - 1) {
+                score += PIECE_VALUES[type] + table[Long.numberOfTrailingZeros(bb) ^ 56];
+                phase += PHASE_WEIGHTS[type];
+            }
+            for (long bb = pos.pieces[6 + type]; bb != 0; bb &= bb - 1) {
+                score -= PIECE_VALUES[type] + table[Long.numberOfTrailingZeros(bb)];
+                phase += PHASE_WEIGHTS[type];
+            }
+        }
+        if (Long.bitCount(pos.pieces[BISHOP]) >= 2) {
+            score += 30;
+        }
+        if (Long.bitCount(pos.pieces[6 + BISHOP]) >= 2) {
+            score -= 30;
+        }
+
+        // The king should stay safe in the middlegame, and become active in the endgame.
+        phase = Math.min(phase, MAX_PHASE);
+        final int whiteKing = pos.kingSquare(WHITE) ^ 56;
+        final int blackKing = pos.kingSquare(BLACK);
+        final int middlegame = TABLES[KING][whiteKing] - TABLES[KING][blackKing];
+        final int endgame = KING_ENDGAME_TABLE[whiteKing] - KING_ENDGAME_TABLE[blackKing];
+        score += (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+
+        return pos.side == WHITE ? score : -score;
+    }
+
+    /**
+     * Return true if neither side can possibly checkmate.
+     */
+    static boolean isInsufficientMaterial(Position pos) {
+        if ((pos.pieces[PAWN] | pos.pieces[6 + PAWN] | pos.pieces[ROOK] | pos.pieces[6 + ROOK]
+                | pos.pieces[QUEEN] | pos.pieces[6 + QUEEN]) != 0) {
+            return false;
+        }
+        // Only kings are left, with at most one minor piece.
+        return Long.bitCount(pos.occupied) <= 3;
+    }
+}
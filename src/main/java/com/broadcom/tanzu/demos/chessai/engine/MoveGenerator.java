@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import static com.broadcom.tanzu.demos.chessai.engine.Position.*;
+
+/**
+ * Generate pseudo-legal moves: moves leaving the king in check are filtered out
+ * once they are played, which is cheaper than checking each move upfront.
+ */
+final class MoveGenerator {
+    /**
+     * Size of a move buffer, which is large enough for any position.
+     */
+    static final int MAX_MOVES = 256;
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final long FILE_H = FILE_A << 7;
+    private static final long RANK_3 = 0xFFL << 16;
+    private static final long RANK_6 = 0xFFL << 40;
+    private static final long PROMOTION_RANKS = 0xFF000000000000FFL;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Fill a buffer with pseudo-legal moves, returning the number of moves.
+     * When <code>tactical</code> is set, only captures and queen promotions are generated.
+     */
+    static int generate(Position pos, int[] moves, boolean tactical) {
+        final int us = pos.side;
+        final int them = us ^ 1;
+        final long own = pos.sides[us];
+        final long enemies = pos.sides[them];
+        final long targets = tactical ? enemies : ~own;
+        int count = generatePawnMoves(pos, moves, 0, tactical);
+
+        final int base = us * 6;
+        for (long bb = pos.pieces[base + KNIGHT]; bb != 0; bb &= bb - 1) {
+            final int from = Long.numberOfTrailingZeros(bb);
+            count = addMoves(moves, count, from, Attacks.KNIGHT[from] & targets);
+        }
+        for (long bb = pos.pieces[base + BISHOP]; bb != 0; bb &= bb - 1) {
+            final int from = Long.numberOfTrailingZeros(bb);
+            count = addMoves(moves, count, from, Attacks.bishop(from, pos.occupied) & targets);
+        }
+        for (long bb = pos.pieces[base + ROOK]; bb != 0; bb &= bb - 1) {
+            final int from = Long.numberOfTrailingZeros(bb);
+            count = addMoves(moves, count, from, Attacks.rook(from, pos.occupied) & targets);
+        }
+        for (long bb = pos.pieces[base + QUEEN]; bb != 0; bb &= bb - 1) {
+            final int from = Long.numberOfTrailingZeros(bb);
+            count = addMoves(moves, count, from, Attacks.queen(from, pos.occupied) & targets);
+        }
+        final int king = pos.kingSquare(us);
+        count = addMoves(moves, count, king, Attacks.KING[king] & targets);
+
+        if (!tactical && pos.castling != 0) {
+            count = generateCastlingMoves(pos, moves, count);
+        }
+        return count;
+    }
+
+    private static int generatePawnMoves(Position pos, int[] moves, int count, boolean tactical) {
+        final int us = pos.side;
+        final long pawns = pos.pieces[us * 6 + PAWN];
+        final long enemies = pos.sides[us ^ 1];
+        final long empty = ~pos.occupied;
+
+        final long pushes;
+        final long doublePushes;
+        final long leftCaptures;
+        final long rightCaptures;
+        final int forward;
+        if (us == WHITE) {
+            pushes = (pawns << 8) & empty;
+            doublePushes = ((pushes & RANK_3) << 8) & empty;
+            leftCaptures = ((pawns & ~FILE_A) << 7) & enemies;
+            rightCaptures = ((pawns & ~FILE_H) << 9) & enemies;
+            forward = 8;
+        } else {
+            pushes = (pawns >>> 8) & empty;
+            doublePushes = ((pushes & RANK_6) >>> 8) & empty;
+            leftCaptures = ((pawns & ~FILE_A) >>> 9) & enemies;
+            rightCaptures = ((pawns & ~FILE_H) >>> 7) & enemies;
+            forward = -8;
+        }
+
+        count = addPawnMoves(moves, count, leftCaptures, forward - 1, tactical);
+        count = addPawnMoves(moves, count, rightCaptures, forward + 1, tactical);
+        if (tactical) {
+            // Quiet promotions may change the evaluation as much as a capture.
+            count = addPawnMoves(moves, count, pushes & PROMOTION_RANKS, forward, true);
+        } else {
+            count = addPawnMoves(moves, count, pushes, forward, false);
+            for (long bb = doublePushes; bb != 0; bb &= bb - 1) {
+                final int to = Long.numberOfTrailingZeros(bb);
+                moves[count++] = Moves.encode(to - 2 * forward, to, 0, Moves.DOUBLE_PUSH);
+            }
+        }
+
+        if (pos.epSquare != -1) {
+            for (long bb = Attacks.PAWN[us ^ 1][pos.epSquare] & pawns; bb != 0; bb &= bb - 1) {
+                moves[count++] = Moves.encode(Long.numberOfTrailingZeros(bb), pos.epSquare, 0, Moves.EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    private static int addPawnMoves(int[] moves, int count, long targets, int offset, boolean queenOnly) {
+        for (long bb = targets; bb != 0; bb &= bb - 1) {
+            final int to = Long.numberOfTrailingZeros(bb);
+            final int from = to - offset;
+            if ((PROMOTION_RANKS & 1L << to) == 0) {
+                moves[count++] = Moves.encode(from, to, 0, Moves.NORMAL);
+            } else {
+                moves[count++] = Moves.encode(from, to, QUEEN, Moves.NORMAL);
+                if (!queenOnly) {
+                    moves[count++] = Moves.encode(from, to, KNIGHT, Moves.NORMAL);
+                    moves[count++] = Moves.encode(from, to, ROOK, Moves.NORMAL);
+                    moves[count++] = Moves.encode(from, to, BISHOP, Moves.NORMAL);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int addMoves(int[] moves, int count, int from, long targets) {
+        for (long bb = targets; bb != 0; bb &= bb - 1) {
+            moves[count++] = Moves.encode(from, Long.numberOfTrailingZeros(bb), 0, Moves.NORMAL);
+        }
+        return count;
+    }
+
+    private static int generateCastlingMoves(Position pos, int[] moves, int count) {
+        // The king cannot castle out of, through or into check
+        // (the target square is checked once the move is played).
+        final long occupied = pos.occupied;
+        if (pos.side == WHITE) {
+            if ((pos.castling & WHITE_KING_SIDE) != 0 && (occupied & 0x60L) == 0
+                    && !pos.isAttacked(4, BLACK) && !pos.isAttacked(5, BLACK)) {
+                moves[count++] = Moves.encode(4, 6, 0, Moves.CASTLING);
+            }
+            if ((pos.castling & WHITE_QUEEN_SIDE) != 0 && (occupied & 0x0EL) == 0
+                    && !pos.isAttacked(4, BLACK) && !pos.isAttacked(3, BLACK)) {
+                moves[count++] = Moves.encode(4, 2, 0, Moves.CASTLING);
+            }
+        } else {
+            if ((pos.castling & BLACK_KING_SIDE) != 0 && (occupied & 0x60L << 56) == 0
+                    && !pos.isAttacked(60, WHITE) && !pos.isAttacked(61, WHITE)) {
+                moves[count++] = Moves.encode(60, 62, 0, Moves.CASTLING);
+            }
+            if ((pos.castling & BLACK_QUEEN_SIDE) != 0 && (occupied & 0x0EL << 56) == 0
+                    && !pos.isAttacked(60, WHITE) && !pos.isAttacked(59, WHITE)) {
+                moves[count++] = Moves.encode(60, 58, 0, Moves.CASTLING);
+            }
+        }
+        return count;
+    }
+}
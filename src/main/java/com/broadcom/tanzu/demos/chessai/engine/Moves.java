@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+/**
+ * Moves are encoded as <code>int</code> values, so that no object is created while searching.
+ * Bits 0-5 are the source square, bits 6-11 the target square, bits 12-14 the promotion piece type
+ * and bits 15-16 a move flag. Squares are numbered from a1 (0) to h8 (63).
+ */
+public final class Moves {
+    /**
+     * Value used when there is no move: this is never a valid move, since source and target squares are the same.
+     */
+    public static final int NONE = 0;
+
+    static final int NORMAL = 0;
+    static final int DOUBLE_PUSH = 1;
+    static final int EN_PASSANT = 2;
+    static final int CASTLING = 3;
+
+    private Moves() {
+    }
+
+    static int encode(int from, int to, int promotion, int flag) {
+        return from | to << 6 | promotion << 12 | flag << 15;
+    }
+
+    static int from(int move) {
+        return move & 63;
+    }
+
+    static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    static int flag(int move) {
+        return (move >>> 15) & 3;
+    }
+
+    public static String toUci(int move) {
+        final var uci = squareName(from(move)) + squareName(to(move));
+        return switch (promotion(move)) {
+            case Position.KNIGHT -> uci + "n";
+            case Position.BISHOP -> uci + "b";
+            case Position.ROOK -> uci + "r";
+            case Position.QUEEN -> uci + "q";
+            default -> uci;
+        };
+    }
+
+    static String squareName(int sq) {
+        return String.valueOf((char) ('a' + (sq & 7))) + (char) ('1' + (sq >>> 3));
+    }
+
+    static int parseSquare(String name) {
+        if (name.length() != 2) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        final int file = name.charAt(0) - 'a';
+        final int rank = name.charAt(1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            throw new IllegalArgumentException("Invalid square: " + name);
+        }
+        return rank * 8 + file;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGenerator;
+
+/**
+ * Opening book, read from a memory-mapped file.
+ * <p>
+ * The file layout is inspired by the Polyglot format: a sequence of 16-byte entries (big-endian),
+ * sorted by position key so that entries for a position are found with a binary search.
+ * Each entry is made of a position key (8 bytes), a move (2 bytes), a weight (2 bytes) and 4 unused bytes.
+ * Unlike Polyglot books, position keys are computed by {@link Position#key()}: see {@link OpeningBookBuilder}
+ * to create a book.
+ * <p>
+ * A move is encoded as: target square (bits 0-5), source square (bits 6-11) and promotion piece type (bits 12-14).
+ * Castling moves are encoded as king moves (such as <code>e1g1</code>).
+ */
+public final class OpeningBook {
+    static final int ENTRY_BYTES = 16;
+
+    private static final OpeningBook EMPTY = new OpeningBook(ByteBuffer.allocate(0));
+
+    // Entries are read in place: a lookup neither copies the file nor creates any object.
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries.order(ByteOrder.BIG_ENDIAN);
+        this.size = entries.capacity() / ENTRY_BYTES;
+    }
+
+    public static OpeningBook empty() {
+        return EMPTY;
+    }
+
+    public static OpeningBook open(Path path) throws IOException {
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long length = channel.size();
+            if (length % ENTRY_BYTES != 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Invalid opening book: " + path);
+            }
+            // The mapping is still valid once the channel is closed.
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+        }
+    }
+
+    /**
+     * Number of entries in this book.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find a book move for a position, returning {@link Moves#NONE} if this position is not in the book.
+     * When there are several moves, a move is randomly selected depending on its weight.
+     */
+    public int probe(Position pos, RandomGenerator random) {
+        final int bookMove = lookup(pos.key(), random);
+        if (bookMove == 0) {
+            return Moves.NONE;
+        }
+        // Make sure the book move is legal: keys may collide.
+        return pos.findMove(bookMove >>> 6 & 63, bookMove & 63, bookMove >>> 12 & 7);
+    }
+
+    /**
+     * Find a book move for a position key, returning 0 if there is no such move.
+     */
+    int lookup(long key, RandomGenerator random) {
+        // Find the first entry for this key.
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        int total = 0;
+        int end = lo;
+        for (; end < size && keyAt(end) == key; ++end) {
+            total += weightAt(end);
+        }
+        if (end == lo) {
+            return 0;
+        }
+        if (total == 0) {
+            return moveAt(lo);
+        }
+        int pick = random.nextInt(total);
+        for (int i = lo; i < end; ++i) {
+            pick -= weightAt(i);
+            if (pick < 0) {
+                return moveAt(i);
+            }
+        }
+        return moveAt(lo);
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    private int moveAt(int index) {
+        return entries.getShort(index * ENTRY_BYTES + 8) & 0xFFFF;
+    }
+
+    private int weightAt(int index) {
+        return entries.getShort(index * ENTRY_BYTES + 10) & 0xFFFF;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Create an opening book from a text file, where each line is an opening played from the standard position
+ * (moves using UCI notation, separated with spaces). Empty lines and lines starting with <code>#</code> are ignored.
+ * <p>
+ * The weight of a book move is the number of openings going through this move.
+ * <p>
+ * Usage: <code>OpeningBookBuilder input.txt output.bin</code>.
+ */
+public final class OpeningBookBuilder {
+    private final Map<Entry, Integer> weights = new HashMap<>();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: OpeningBookBuilder <input> <output>");
+            System.exit(1);
+        }
+        final var builder = new OpeningBookBuilder();
+        try (final var lines = Files.lines(Path.of(args[0]))) {
+            lines.map(String::strip)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .forEach(line -> builder.add(List.of(line.split("\\s+"))));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        final var book = builder.build();
+        Files.write(Path.of(args[1]), book);
+        System.out.printf("Opening book written to %s: %d entries%n", args[1], book.length / OpeningBook.ENTRY_BYTES);
+    }
+
+    /**
+     * Add an opening to this book: an exception is thrown if a move is illegal.
+     */
+    public void add(List<String> moves) {
+        final var pos = Position.fromFen(Position.STANDARD_FEN);
+        for (final var uci : moves) {
+            final int move = pos.parseMove(uci);
+            if (move == Moves.NONE) {
+                throw new IllegalArgumentException("Illegal move in opening " + moves + ": " + uci);
+            }
+            final int bookMove = Moves.to(move) | Moves.from(move) << 6 | Moves.promotion(move) << 12;
+            weights.merge(new Entry(pos.key(), bookMove), 1, Integer::sum);
+            pos.makeMove(move);
+        }
+    }
+
+    public byte[] build() {
+        final var entries = new ArrayList<>(weights.entrySet());
+        // Entries are sorted by key (as unsigned values), and then by decreasing weight.
+        entries.sort((a, b) -> {
+            final int c = Long.compareUnsigned(a.getKey().key(), b.getKey().key());
+            return c != 0 ? c : Integer.compare(b.getValue(), a.getValue());
+        });
+        final var buf = ByteBuffer.allocate(entries.size() * OpeningBook.ENTRY_BYTES).order(ByteOrder.BIG_ENDIAN);
+        for (final var e : entries) {
+            buf.putLong(e.getKey().key());
+            buf.putShort((short) e.getKey().move());
+            buf.putShort((short) Math.min(e.getValue(), 0xFFFF));
+            buf.putInt(0);
+        }
+        return buf.array();
+    }
+
+    private record Entry(long key, int move) {
+    }
+}
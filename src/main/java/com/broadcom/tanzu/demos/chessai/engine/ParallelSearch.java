@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Search a position with several threads sharing the same transposition table (Lazy SMP):
+ * helper threads search the same position without any coordination, filling the table
+ * with results which speed up the main search.
+ * <p>
+ * Helper threads are taken from a fixed budget shared by all searches: a search runs with
+ * fewer helper threads (or none) when this budget is exhausted, so that concurrent searches
+ * do not oversubscribe the machine.
+ */
+public final class ParallelSearch implements AutoCloseable {
+    private final TranspositionTable table;
+    private final Tablebase tablebase;
+    private final int maxHelperThreads;
+    private final Semaphore helperBudget;
+    private final ExecutorService helpers;
+
+    public ParallelSearch(TranspositionTable table, int maxHelperThreads) {
+        this(table, Tablebase.empty(), maxHelperThreads);
+    }
+
+    public ParallelSearch(TranspositionTable table, Tablebase tablebase, int maxHelperThreads) {
+        this.table = table;
+        this.tablebase = tablebase;
+        this.maxHelperThreads = maxHelperThreads;
+        this.helperBudget = new Semaphore(maxHelperThreads);
+        final var threadCount = new AtomicInteger();
+        this.helpers = maxHelperThreads == 0 ? null : Executors.newFixedThreadPool(maxHelperThreads, r -> {
+            final var t = new Thread(r, "search-helper-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Search a position using up to <code>threads</code> threads, including the calling thread.
+     */
+    public SearchResult search(Position position, SearchLimits limits, int threads) {
+        int helperCount = 0;
+        while (helperCount < threads - 1 && helperBudget.tryAcquire()) {
+            ++helperCount;
+        }
+        if (helperCount == 0) {
+            return new Search(table, tablebase).search(position, limits);
+        }
+
+        try {
+            final long start = System.nanoTime();
+            final int generation = table.newSearch();
+            final var stop = new AtomicBoolean();
+            final var futures = new ArrayList<Future<SearchResult>>(helperCount);
+            for (int i = 0; i < helperCount; ++i) {
+                // Half of the helper threads start one iteration ahead, so that threads do not all search
+                // the same nodes in the same order.
+                final int firstDepth = 1 + (i + 1) % 2;
+                futures.add(helpers.submit(() -> new Search(table, tablebase).search(position, limits, generation, firstDepth, stop)));
+            }
+            final var main = new Search(table, tablebase).search(position, limits, generation, 1, null);
+            stop.set(true);
+
+            // Use the result from the deepest completed iteration.
+            var best = main;
+            long nodes = main.nodes();
+            for (final var future : futures) {
+                final SearchResult result;
+                try {
+                    result = future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Helper search failed", e.getCause());
+                }
+                nodes += result.nodes();
+                if (result.bestMove() != null && result.depth() > best.depth()) {
+                    best = result;
+                }
+            }
+            return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes,
+                    Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            helperBudget.release(helperCount);
+        }
+    }
+
+    public int maxHelperThreads() {
+        return maxHelperThreads;
+    }
+
+    public int activeHelperThreads() {
+        return maxHelperThreads - helperBudget.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+}
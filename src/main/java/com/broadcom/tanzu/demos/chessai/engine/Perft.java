@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+/**
+ * Count leaf nodes of the move tree up to a given depth (performance test):
+ * this is how the move generator is validated, by comparing results with known node counts (see PerftTest).
+ */
+public final class Perft {
+    private final Position pos;
+    private final int[][] moves;
+
+    private Perft(Position pos, int depth) {
+        this.pos = pos;
+        this.moves = new int[Math.max(1, depth)][MoveGenerator.MAX_MOVES];
+    }
+
+    public static long perft(Position pos, int depth) {
+        return new Perft(pos, depth).count(depth);
+    }
+
+    private long count(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        final var buf = moves[depth - 1];
+        final int count = MoveGenerator.generate(pos, buf, false);
+        long nodes = 0;
+        for (int i = 0; i < count; ++i) {
+            final int move = buf[i];
+            pos.makeMove(move);
+            if (!pos.isKingAttacked(pos.side ^ 1)) {
+                nodes += depth == 1 ? 1 : count(depth - 1);
+            }
+            pos.unmakeMove(move);
+        }
+        return nodes;
+    }
+}
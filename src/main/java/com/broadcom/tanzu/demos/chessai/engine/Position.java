@@ -0,0 +1,472 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chess position using bitboards: one 64-bit set per piece, where bit <code>n</code> stands for square
+ * <code>n</code> (a1 = 0, h8 = 63).
+ * Moves are played and taken back in place, without creating any object.
+ * A position is not thread-safe: each search uses its own copy.
+ */
+public final class Position {
+    public static final String STANDARD_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    static final int WHITE = 0;
+    static final int BLACK = 1;
+
+    // Piece types: a piece is encoded as side * 6 + type.
+    static final int PAWN = 0;
+    static final int KNIGHT = 1;
+    static final int BISHOP = 2;
+    static final int ROOK = 3;
+    static final int QUEEN = 4;
+    static final int KING = 5;
+    static final int NO_PIECE = 12;
+
+    static final int WHITE_KING_SIDE = 1;
+    static final int WHITE_QUEEN_SIDE = 2;
+    static final int BLACK_KING_SIDE = 4;
+    static final int BLACK_QUEEN_SIDE = 8;
+
+    private static final String PIECE_CHARS = "PNBRQKpnbrqk";
+
+    // Castling rights which are kept when a piece moves from or to a square.
+    private static final int[] CASTLING_RIGHTS = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_RIGHTS, 15);
+        CASTLING_RIGHTS[0] &= ~WHITE_QUEEN_SIDE;
+        CASTLING_RIGHTS[7] &= ~WHITE_KING_SIDE;
+        CASTLING_RIGHTS[4] &= ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        CASTLING_RIGHTS[56] &= ~BLACK_QUEEN_SIDE;
+        CASTLING_RIGHTS[63] &= ~BLACK_KING_SIDE;
+        CASTLING_RIGHTS[60] &= ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+    }
+
+    final long[] pieces = new long[12];
+    final long[] sides = new long[2];
+    final int[] board = new int[64];
+    long occupied;
+    int side;
+    int castling;
+    int epSquare = -1;
+    int halfMoveClock;
+    int fullMoveNumber = 1;
+    long key;
+
+    // Position state before each move: this is what we need to take back a move,
+    // and to detect repeated positions.
+    private long[] keys = new long[256];
+    private int[] states = new int[256];
+    private int historySize;
+
+    private Position() {
+        Arrays.fill(board, NO_PIECE);
+    }
+
+    public static Position fromFen(String fen) {
+        final var fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        final var pos = new Position();
+        int rank = 7;
+        int file = 0;
+        for (final char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                --rank;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                final int piece = PIECE_CHARS.indexOf(c);
+                if (piece == -1 || rank < 0 || file > 7) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                pos.addPiece(piece, rank * 8 + file);
+                ++file;
+            }
+        }
+        if (Long.bitCount(pos.pieces[KING]) != 1 || Long.bitCount(pos.pieces[6 + KING]) != 1) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+
+        pos.side = "b".equals(fields[1]) ? BLACK : WHITE;
+        if (pos.side == BLACK) {
+            pos.key ^= Zobrist.SIDE;
+        }
+        for (final char c : fields[2].toCharArray()) {
+            pos.castling |= switch (c) {
+                case 'K' -> WHITE_KING_SIDE;
+                case 'Q' -> WHITE_QUEEN_SIDE;
+                case 'k' -> BLACK_KING_SIDE;
+                case 'q' -> BLACK_QUEEN_SIDE;
+                default -> 0;
+            };
+        }
+        pos.key ^= Zobrist.CASTLING[pos.castling];
+        if (!"-".equals(fields[3])) {
+            pos.epSquare = Moves.parseSquare(fields[3]);
+            pos.key ^= Zobrist.EN_PASSANT[pos.epSquare & 7];
+        }
+        if (fields.length > 5) {
+            pos.halfMoveClock = Integer.parseInt(fields[4]);
+            pos.fullMoveNumber = Integer.parseInt(fields[5]);
+        }
+        return pos;
+    }
+
+    public String toFen() {
+        final var fen = new StringBuilder(90);
+        for (int rank = 7; rank >= 0; --rank) {
+            int empty = 0;
+            for (int file = 0; file < 8; ++file) {
+                final int piece = board[rank * 8 + file];
+                if (piece == NO_PIECE) {
+                    ++empty;
+                } else {
+                    if (empty != 0) {
+                        fen.append(empty);
+                        empty = 0;
+                    }
+                    fen.append(PIECE_CHARS.charAt(piece));
+                }
+            }
+            if (empty != 0) {
+                fen.append(empty);
+            }
+            if (rank != 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(side == WHITE ? " w " : " b ");
+        if (castling == 0) {
+            fen.append('-');
+        } else {
+            if ((castling & WHITE_KING_SIDE) != 0) fen.append('K');
+            if ((castling & WHITE_QUEEN_SIDE) != 0) fen.append('Q');
+            if ((castling & BLACK_KING_SIDE) != 0) fen.append('k');
+            if ((castling & BLACK_QUEEN_SIDE) != 0) fen.append('q');
+        }
+        fen.append(' ').append(epSquare == -1 ? "-" : Moves.squareName(epSquare));
+        fen.append(' ').append(halfMoveClock).append(' ').append(fullMoveNumber);
+        return fen.toString();
+    }
+
+    /**
+     * Create a copy of this position, including the history of played moves.
+     */
+    public Position copy() {
+        final var pos = new Position();
+        System.arraycopy(pieces, 0, pos.pieces, 0, pieces.length);
+        System.arraycopy(sides, 0, pos.sides, 0, sides.length);
+        System.arraycopy(board, 0, pos.board, 0, board.length);
+        pos.occupied = occupied;
+        pos.side = side;
+        pos.castling = castling;
+        pos.epSquare = epSquare;
+        pos.halfMoveClock = halfMoveClock;
+        pos.fullMoveNumber = fullMoveNumber;
+        pos.key = key;
+        pos.keys = Arrays.copyOf(keys, keys.length);
+        pos.states = Arrays.copyOf(states, states.length);
+        pos.historySize = historySize;
+        return pos;
+    }
+
+    /**
+     * Play a move using UCI notation (such as <code>e2e4</code> or <code>e7e8q</code>).
+     */
+    public void play(String uci) {
+        final int move = parseMove(uci);
+        if (move == Moves.NONE) {
+            throw new IllegalArgumentException("Illegal move: " + uci);
+        }
+        makeMove(move);
+    }
+
+    /**
+     * Find a legal move using UCI notation, returning {@link Moves#NONE} if there is no such move.
+     */
+    public int parseMove(String uci) {
+        final var moves = new int[MoveGenerator.MAX_MOVES];
+        final int count = MoveGenerator.generate(this, moves, false);
+        for (int i = 0; i < count; ++i) {
+            if (Moves.toUci(moves[i]).equals(uci) && isLegal(moves[i])) {
+                return moves[i];
+            }
+        }
+        return Moves.NONE;
+    }
+
+    /**
+     * List legal moves using UCI notation.
+     */
+    public List<String> legalMoves() {
+        final var moves = new int[MoveGenerator.MAX_MOVES];
+        final int count = MoveGenerator.generate(this, moves, false);
+        final var legalMoves = new ArrayList<String>(count);
+        for (int i = 0; i < count; ++i) {
+            if (isLegal(moves[i])) {
+                legalMoves.add(Moves.toUci(moves[i]));
+            }
+        }
+        return legalMoves;
+    }
+
+    /**
+     * Find a legal move using its source and target squares, returning {@link Moves#NONE} if there is no such move.
+     */
+    int findMove(int from, int to, int promotion) {
+        final var moves = new int[MoveGenerator.MAX_MOVES];
+        final int count = MoveGenerator.generate(this, moves, false);
+        for (int i = 0; i < count; ++i) {
+            final int move = moves[i];
+            if (Moves.from(move) == from && Moves.to(move) == to && Moves.promotion(move) == promotion && isLegal(move)) {
+                return move;
+            }
+        }
+        return Moves.NONE;
+    }
+
+    public boolean isWhiteToMove() {
+        return side == WHITE;
+    }
+
+    public long key() {
+        return key;
+    }
+
+    /**
+     * Hash of this position combined with the positions reached since the last irreversible move
+     * (and with the half-move clock): positions with the same history key lead to the same draws
+     * by repetition or by the 50-move rule, unlike positions which only share the same {@link #key()}.
+     */
+    public long historyKey() {
+        long h = key ^ halfMoveClock;
+        final int first = Math.max(0, historySize - halfMoveClock);
+        for (int i = historySize - 1; i >= first; --i) {
+            h = h * 0x9E3779B97F4A7C15L + keys[i];
+        }
+        return h;
+    }
+
+    boolean isLegal(int move) {
+        makeMove(move);
+        final boolean legal = !isKingAttacked(side ^ 1);
+        unmakeMove(move);
+        return legal;
+    }
+
+    void makeMove(int move) {
+        ensureCapacity();
+        final int from = Moves.from(move);
+        final int to = Moves.to(move);
+        final int flag = Moves.flag(move);
+        final int us = side;
+        final int piece = board[from];
+        int capturedSquare = to;
+        if (flag == Moves.EN_PASSANT) {
+            capturedSquare = us == WHITE ? to - 8 : to + 8;
+        }
+        final int captured = board[capturedSquare];
+
+        keys[historySize] = key;
+        states[historySize] = captured | castling << 4 | (epSquare + 1) << 8 | halfMoveClock << 15;
+        ++historySize;
+
+        if (epSquare != -1) {
+            key ^= Zobrist.EN_PASSANT[epSquare & 7];
+        }
+        key ^= Zobrist.CASTLING[castling];
+
+        if (captured != NO_PIECE) {
+            removePiece(captured, capturedSquare);
+        }
+        movePiece(piece, from, to);
+        final int promotion = Moves.promotion(move);
+        if (promotion != 0) {
+            removePiece(piece, to);
+            addPiece(us * 6 + promotion, to);
+        }
+        if (flag == Moves.CASTLING) {
+            switch (to) {
+                case 6 -> movePiece(ROOK, 7, 5);
+                case 2 -> movePiece(ROOK, 0, 3);
+                case 62 -> movePiece(6 + ROOK, 63, 61);
+                case 58 -> movePiece(6 + ROOK, 56, 59);
+                default -> throw new IllegalStateException("Invalid castling move: " + Moves.toUci(move));
+            }
+        }
+
+        castling &= CASTLING_RIGHTS[from] & CASTLING_RIGHTS[to];
+        key ^= Zobrist.CASTLING[castling];
+        epSquare = flag == Moves.DOUBLE_PUSH ? (from + to) >>> 1 : -1;
+        if (epSquare != -1) {
+            key ^= Zobrist.EN_PASSANT[epSquare & 7];
+        }
+        halfMoveClock = piece == us * 6 + PAWN || captured != NO_PIECE ? 0 : halfMoveClock + 1;
+        if (us == BLACK) {
+            ++fullMoveNumber;
+        }
+        side = us ^ 1;
+        key ^= Zobrist.SIDE;
+    }
+
+    void unmakeMove(int move) {
+        --historySize;
+        final int state = states[historySize];
+        side ^= 1;
+        final int us = side;
+        if (us == BLACK) {
+            --fullMoveNumber;
+        }
+
+        final int from = Moves.from(move);
+        final int to = Moves.to(move);
+        final int flag = Moves.flag(move);
+        if (Moves.promotion(move) != 0) {
+            removePiece(board[to], to);
+            addPiece(us * 6 + PAWN, to);
+        }
+        movePiece(board[to], to, from);
+        if (flag == Moves.CASTLING) {
+            switch (to) {
+                case 6 -> movePiece(ROOK, 5, 7);
+                case 2 -> movePiece(ROOK, 3, 0);
+                case 62 -> movePiece(6 + ROOK, 61, 63);
+                case 58 -> movePiece(6 + ROOK, 59, 56);
+                default -> throw new IllegalStateException("Invalid castling move: " + Moves.toUci(move));
+            }
+        }
+        final int captured = state & 15;
+        if (captured != NO_PIECE) {
+            addPiece(captured, flag == Moves.EN_PASSANT ? (us == WHITE ? to - 8 : to + 8) : to);
+        }
+
+        castling = (state >>> 4) & 15;
+        epSquare = ((state >>> 8) & 127) - 1;
+        halfMoveClock = state >>> 15;
+        key = keys[historySize];
+    }
+
+    void makeNullMove() {
+        ensureCapacity();
+        keys[historySize] = key;
+        states[historySize] = NO_PIECE | castling << 4 | (epSquare + 1) << 8 | halfMoveClock << 15;
+        ++historySize;
+        if (epSquare != -1) {
+            key ^= Zobrist.EN_PASSANT[epSquare & 7];
+            epSquare = -1;
+        }
+        ++halfMoveClock;
+        side ^= 1;
+        key ^= Zobrist.SIDE;
+    }
+
+    void unmakeNullMove() {
+        --historySize;
+        final int state = states[historySize];
+        side ^= 1;
+        epSquare = ((state >>> 8) & 127) - 1;
+        halfMoveClock = state >>> 15;
+        key = keys[historySize];
+    }
+
+    int kingSquare(int side) {
+        return Long.numberOfTrailingZeros(pieces[side * 6 + KING]);
+    }
+
+    boolean isInCheck() {
+        return isKingAttacked(side);
+    }
+
+    boolean isKingAttacked(int side) {
+        return isAttacked(kingSquare(side), side ^ 1);
+    }
+
+    boolean isAttacked(int sq, int by) {
+        final int base = by * 6;
+        return (Attacks.PAWN[by ^ 1][sq] & pieces[base + PAWN]) != 0
+                || (Attacks.KNIGHT[sq] & pieces[base + KNIGHT]) != 0
+                || (Attacks.KING[sq] & pieces[base + KING]) != 0
+                || (Attacks.bishop(sq, occupied) & (pieces[base + BISHOP] | pieces[base + QUEEN])) != 0
+                || (Attacks.rook(sq, occupied) & (pieces[base + ROOK] | pieces[base + QUEEN])) != 0;
+    }
+
+    boolean hasNonPawnMaterial(int side) {
+        final int base = side * 6;
+        return (pieces[base + KNIGHT] | pieces[base + BISHOP] | pieces[base + ROOK] | pieces[base + QUEEN]) != 0;
+    }
+
+    /**
+     * Return true if this position was already reached since the last irreversible move.
+     */
+    boolean isRepetition() {
+        final int first = Math.max(0, historySize - halfMoveClock);
+        for (int i = historySize - 2; i >= first; i -= 2) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void ensureCapacity() {
+        if (historySize == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            states = Arrays.copyOf(states, states.length * 2);
+        }
+    }
+
+    private void addPiece(int piece, int sq) {
+        final long bb = 1L << sq;
+        pieces[piece] |= bb;
+        sides[piece / 6] |= bb;
+        occupied |= bb;
+        board[sq] = piece;
+        key ^= Zobrist.piece(piece, sq);
+    }
+
+    private void removePiece(int piece, int sq) {
+        final long bb = 1L << sq;
+        pieces[piece] &= ~bb;
+        sides[piece / 6] &= ~bb;
+        occupied &= ~bb;
+        board[sq] = NO_PIECE;
+        key ^= Zobrist.piece(piece, sq);
+    }
+
+    private void movePiece(int piece, int from, int to) {
+        final long bb = 1L << from | 1L << to;
+        pieces[piece] ^= bb;
+        sides[piece / 6] ^= bb;
+        occupied ^= bb;
+        board[from] = NO_PIECE;
+        board[to] = piece;
+        key ^= Zobrist.piece(piece, from) ^ Zobrist.piece(piece, to);
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
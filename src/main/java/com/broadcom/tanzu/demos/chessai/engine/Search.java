@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.broadcom.tanzu.demos.chessai.engine.Position.*;
+
+/**
+ * Iterative-deepening alpha-beta search (principal variation search), with a quiescence search
+ * on captures to avoid misjudging positions in the middle of an exchange.
+ * A search instance reuses its buffers between searches, but it is not thread-safe:
+ * search results are shared with other searches through a transposition table.
+ */
+public final class Search {
+    static final int MAX_PLY = 128;
+    static final int MATE = 32_000;
+    private static final int INFINITY = 32_500;
+
+    // Move ordering scores: good moves are searched first to get more cutoffs.
+    private static final int PV_MOVE_SCORE = 2_000_001;
+    private static final int TABLE_MOVE_SCORE = 2_000_000;
+    private static final int CAPTURE_SCORE = 1_000_000;
+    private static final int KILLER_SCORE = 900_000;
+
+    // Check the clock every 2048 nodes only.
+    private static final int CLOCK_MASK = 2047;
+
+    private final TranspositionTable table;
+    private final Tablebase tablebase;
+    private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[] history = new int[2 * 64 * 64];
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    // Principal variation of the previous iteration, which is searched first.
+    private final int[] previousPv = new int[MAX_PLY];
+    private int previousPvLength;
+
+    private Position pos;
+    private long nodes;
+    private long deadline;
+    private boolean checkClock;
+    private boolean stopped;
+    private AtomicBoolean stopSignal;
+    private int generation;
+    private long tableProbes;
+    private long tableHits;
+
+    public Search(TranspositionTable table) {
+        this(table, Tablebase.empty());
+    }
+
+    public Search(TranspositionTable table, Tablebase tablebase) {
+        this.table = table;
+        this.tablebase = tablebase;
+    }
+
+    public SearchResult search(Position position, SearchLimits limits) {
+        return search(position, limits, table.newSearch(), 1, null);
+    }
+
+    /**
+     * Run a search which stops as soon as the stop signal is set:
+     * the best move is then taken from the last completed iteration, if any.
+     */
+    public SearchResult search(Position position, SearchLimits limits, AtomicBoolean stopSignal) {
+        return search(position, limits, table.newSearch(), 1, stopSignal);
+    }
+
+    /**
+     * Run a search which may be one of several searches for the same position (see {@link ParallelSearch}):
+     * a helper search starts at a given depth, and it stops as soon as the stop signal is set.
+     */
+    SearchResult search(Position position, SearchLimits limits, int generation, int firstDepth, AtomicBoolean stopSignal) {
+        final long start = System.nanoTime();
+        pos = position.copy();
+        nodes = 0;
+        deadline = start + limits.timeLimit().toNanos();
+        // Helper searches do not need to find a move: they can be stopped at any time.
+        checkClock = stopSignal != null;
+        stopped = false;
+        this.stopSignal = stopSignal;
+        this.generation = generation;
+        tableProbes = 0;
+        tableHits = 0;
+        for (final var k : killers) {
+            Arrays.fill(k, Moves.NONE);
+        }
+        Arrays.fill(history, 0);
+        pv[0][0] = Moves.NONE;
+        previousPvLength = 0;
+
+        int bestMove = Moves.NONE;
+        int bestScore = 0;
+        int completedDepth = 0;
+        final int maxDepth = Math.min(limits.maxDepth(), MAX_PLY - 1);
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; ++depth) {
+            final int score = search(depth, -INFINITY, INFINITY, 0, false);
+            if (stopped) {
+                // Results from an incomplete iteration cannot be trusted.
+                break;
+            }
+            bestMove = pv[0][0];
+            bestScore = score;
+            previousPvLength = pvLength[0];
+            System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+            completedDepth = depth;
+            // The clock is only checked once we have a move to play.
+            checkClock = true;
+
+            if (bestMove == Moves.NONE || Math.abs(score) >= MATE - MAX_PLY) {
+                // There is no legal move, or a forced mate was found: no need to look further.
+                break;
+            }
+            if (System.nanoTime() - start > (deadline - start) / 2) {
+                // The next iteration would most likely run out of time.
+                break;
+            }
+        }
+        table.record(tableProbes, tableHits);
+        return new SearchResult(bestMove == Moves.NONE ? null : Moves.toUci(bestMove),
+                bestScore, completedDepth, nodes, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private int search(int depth, int alpha, int beta, int ply, boolean nullMoveAllowed) {
+        pvLength[ply] = ply;
+        if (ply > 0 && (pos.halfMoveClock >= 100 || pos.isRepetition() || Evaluation.isInsufficientMaterial(pos))) {
+            return 0;
+        }
+        if (ply > 0 && Long.bitCount(pos.occupied) <= Tablebase.MAX_PIECES) {
+            // Endgames found in the tablebase are solved: no need to search any further.
+            final int score = tablebase.probe(pos);
+            if (score != Tablebase.NOT_FOUND) {
+                return score > 0 ? score - ply : score < 0 ? score + ply : 0;
+            }
+        }
+        final boolean inCheck = pos.isInCheck();
+        if (inCheck) {
+            // Extend the search when in check, to avoid missing mates beyond the horizon.
+            ++depth;
+        }
+        if (depth <= 0) {
+            return quiesce(alpha, beta, ply);
+        }
+        if (ply >= MAX_PLY - 1) {
+            return Evaluation.evaluate(pos);
+        }
+        if (tick()) {
+            return 0;
+        }
+
+        // Reuse results from previous searches: a cutoff is only allowed outside of the principal variation,
+        // and the best move we found for this position is searched first.
+        final boolean pvNode = beta - alpha > 1;
+        final int alphaOrig = alpha;
+        int tableMove = Moves.NONE;
+        ++tableProbes;
+        final long entry = table.probe(pos.key);
+        if (entry != 0) {
+            ++tableHits;
+            tableMove = TranspositionTable.move(entry);
+            if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                final int score = fromTable(TranspositionTable.score(entry), ply);
+                final int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        if (nullMoveAllowed && !pvNode && !inCheck && depth >= 3 && pos.hasNonPawnMaterial(pos.side)) {
+            // Null move pruning: if passing our turn still beats beta, this position is most likely good enough.
+            // This is not done without pieces, to avoid zugzwang positions.
+            pos.makeNullMove();
+            final int score = -search(depth - 3, -beta, -beta + 1, ply + 1, false);
+            pos.unmakeNullMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return beta;
+            }
+        }
+
+        final var buf = moves[ply];
+        final int count = MoveGenerator.generate(pos, buf, false);
+        scoreMoves(buf, moveScores[ply], count, ply, tableMove);
+
+        int best = -INFINITY;
+        int bestMove = Moves.NONE;
+        int legalMoves = 0;
+        for (int i = 0; i < count; ++i) {
+            final int move = nextMove(buf, moveScores[ply], i, count);
+            final boolean quiet = isQuiet(move);
+            pos.makeMove(move);
+            if (pos.isKingAttacked(pos.side ^ 1)) {
+                pos.unmakeMove(move);
+                continue;
+            }
+            ++legalMoves;
+
+            int score;
+            if (legalMoves == 1) {
+                score = -search(depth - 1, -beta, -alpha, ply + 1, true);
+            } else {
+                // Late move reduction: quiet moves searched last are unlikely to be good,
+                // so they are searched with a reduced depth first.
+                final int reduction = depth >= 3 && legalMoves > 3 && quiet && !inCheck && !pos.isInCheck() ? 1 : 0;
+                score = -search(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+                if (score > alpha && reduction > 0) {
+                    score = -search(depth - 1, -alpha - 1, -alpha, ply + 1, true);
+                }
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, -beta, -alpha, ply + 1, true);
+                }
+            }
+            pos.unmakeMove(move);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        if (quiet) {
+                            updateKillers(ply, move, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (legalMoves == 0) {
+            // Checkmate or stalemate: prefer faster mates.
+            return inCheck ? -MATE + ply : 0;
+        }
+        final int bound = best >= beta ? TranspositionTable.LOWER_BOUND
+                : best > alphaOrig ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(pos.key, bestMove, toTable(best, ply), depth, bound, generation);
+        return best;
+    }
+
+    private int quiesce(int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        if (tick()) {
+            return 0;
+        }
+        final int standPat = Evaluation.evaluate(pos);
+        if (ply >= MAX_PLY - 1 || standPat >= beta) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        final var buf = moves[ply];
+        final int count = MoveGenerator.generate(pos, buf, true);
+        scoreMoves(buf, moveScores[ply], count, -1, Moves.NONE);
+
+        int best = standPat;
+        for (int i = 0; i < count; ++i) {
+            final int move = nextMove(buf, moveScores[ply], i, count);
+            pos.makeMove(move);
+            if (pos.isKingAttacked(pos.side ^ 1)) {
+                pos.unmakeMove(move);
+                continue;
+            }
+            final int score = -quiesce(-beta, -alpha, ply + 1);
+            pos.unmakeMove(move);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private boolean tick() {
+        ++nodes;
+        if (checkClock && (nodes & CLOCK_MASK) == 0
+                && ((stopSignal != null && stopSignal.get()) || System.nanoTime() > deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private boolean isQuiet(int move) {
+        return pos.board[Moves.to(move)] == NO_PIECE && Moves.flag(move) != Moves.EN_PASSANT
+                && Moves.promotion(move) == 0;
+    }
+
+    private void scoreMoves(int[] buf, int[] scores, int count, int ply, int tableMove) {
+        // The ply is negative for the quiescence search, where only captures are scored.
+        final int pvMove = ply >= 0 && ply < previousPvLength ? previousPv[ply] : Moves.NONE;
+        for (int i = 0; i < count; ++i) {
+            final int move = buf[i];
+            final int from = Moves.from(move);
+            final int to = Moves.to(move);
+            final int victim = pos.board[to];
+            if (move == pvMove) {
+                scores[i] = PV_MOVE_SCORE;
+            } else if (move == tableMove) {
+                scores[i] = TABLE_MOVE_SCORE;
+            } else if (victim != NO_PIECE || Moves.flag(move) == Moves.EN_PASSANT || Moves.promotion(move) != 0) {
+                // Most valuable victim, least valuable attacker.
+                final int victimValue = victim == NO_PIECE ? Evaluation.PIECE_VALUES[PAWN] : Evaluation.PIECE_VALUES[victim % 6];
+                scores[i] = CAPTURE_SCORE + victimValue * 8 - pos.board[from] % 6
+                        + (Moves.promotion(move) == QUEEN ? Evaluation.PIECE_VALUES[QUEEN] * 8 : 0);
+            } else if (ply >= 0 && move == killers[ply][0]) {
+                scores[i] = KILLER_SCORE;
+            } else if (ply >= 0 && move == killers[ply][1]) {
+                scores[i] = KILLER_SCORE - 1;
+            } else {
+                scores[i] = history[pos.side << 12 | from << 6 | to];
+            }
+        }
+    }
+
+    // Mate scores depend on the distance to the root: they are stored as a distance to the current position.
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private static int nextMove(int[] buf, int[] scores, int index, int count) {
+        // Selection sort: most of the time only the first moves are searched.
+        int best = index;
+        for (int i = index + 1; i < count; ++i) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        final int move = buf[best];
+        buf[best] = buf[index];
+        buf[index] = move;
+        final int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+        pvLength[ply] = pvLength[ply + 1];
+    }
+
+    private void updateKillers(int ply, int move, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        final int index = pos.side << 12 | Moves.from(move) << 6 | Moves.to(move);
+        history[index] = Math.min(history[index] + depth * depth, KILLER_SCORE - 2);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import java.time.Duration;
+
+/**
+ * Limits for a search: the search stops as soon as one of these limits is reached.
+ */
+public record SearchLimits(int maxDepth, Duration timeLimit) {
+    public SearchLimits {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Max depth must be positive: " + maxDepth);
+        }
+        if (timeLimit == null || timeLimit.isNegative() || timeLimit.isZero()) {
+            throw new IllegalArgumentException("Time limit must be positive: " + timeLimit);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.broadcom.tanzu.demos.chessai.engine.Position.*;
+
+/**
+ * Endgame tablebase, giving the exact outcome of positions with 3 pieces (king and pawn, rook or queen
+ * against a lone king) and the number of plies to mate, read from a memory-mapped file.
+ * <p>
+ * Each table stores one byte per position (see {@link #index(Position)}), from the side to move point of view:
+ * 0 for a draw, <code>n + 1</code> for a mate in <code>n</code> plies (a win if <code>n</code> is odd, a loss
+ * otherwise), and 255 for an invalid position. Tables are split into blocks which are compressed with Deflate:
+ * decompressed blocks are kept in a bounded page cache, so that only the blocks in use are held in memory.
+ * See {@link TablebaseBuilder} to create a tablebase file.
+ * <p>
+ * File layout (big-endian): magic number, block size (number of positions per block), number of tables,
+ * then for each table the type of the extra piece, its number of blocks and the offset of each block
+ * (plus the end offset of the last block).
+ */
+public final class Tablebase {
+    public static final int MAX_PIECES = 3;
+
+    /**
+     * Value returned by {@link #probe(Position)} when a position is not covered by this tablebase.
+     */
+    static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    static final int MAGIC = 0x43544231;
+    static final int TABLE_SIZE = 2 * 64 * 64 * 64;
+    static final int DRAW = 0;
+    static final int INVALID = 255;
+
+    private static final Tablebase EMPTY = new Tablebase(null, new long[6][], new int[6], 1, 1);
+
+    private final ByteBuffer file;
+    // Block offsets, indexed by piece type: there is no table for missing piece types.
+    private final long[][] blocks;
+    // Number of the first block of each table, counting blocks from all tables.
+    private final int[] firstBlocks;
+    private final int blockSize;
+    // Decompressed blocks: a block may replace another one using the same slot (direct-mapped cache).
+    // Pages are immutable, so they can be shared between threads without any lock.
+    private final Page[] pages;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder pageHits = new LongAdder();
+    private final LongAdder pageMisses = new LongAdder();
+
+    private Tablebase(ByteBuffer file, long[][] blocks, int[] firstBlocks, int blockSize, int pageCount) {
+        this.file = file;
+        this.blocks = blocks;
+        this.firstBlocks = firstBlocks;
+        this.blockSize = blockSize;
+        this.pages = new Page[pageCount];
+    }
+
+    public static Tablebase empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Open a tablebase file, keeping up to <code>cacheSize</code> bytes of decompressed blocks in memory.
+     */
+    public static Tablebase open(Path path, long cacheSize) throws IOException {
+        final ByteBuffer file;
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping is still valid once the channel is closed.
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.BIG_ENDIAN);
+        }
+        try {
+            if (file.getInt() != MAGIC) {
+                throw new IOException("Invalid tablebase: " + path);
+            }
+            final int blockSize = file.getInt();
+            final int tableCount = file.getInt();
+            final var blocks = new long[6][];
+            final var firstBlocks = new int[6];
+            int blockCount = 0;
+            for (int i = 0; i < tableCount; ++i) {
+                final int pieceType = file.getInt();
+                final var offsets = new long[file.getInt() + 1];
+                for (int j = 0; j < offsets.length; ++j) {
+                    offsets[j] = file.getLong();
+                }
+                blocks[pieceType] = offsets;
+                firstBlocks[pieceType] = blockCount;
+                blockCount += offsets.length - 1;
+            }
+            final int pageCount = Math.clamp(cacheSize / blockSize, 1, Integer.MAX_VALUE);
+            return new Tablebase(file, blocks, firstBlocks, blockSize, pageCount);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid tablebase: " + path, e);
+        }
+    }
+
+    /**
+     * Number of tables in this tablebase.
+     */
+    public int tables() {
+        int count = 0;
+        for (final var offsets : blocks) {
+            if (offsets != null) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    public long cacheSizeInBytes() {
+        return (long) pages.length * blockSize;
+    }
+
+    public long probes() {
+        return probes.sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long pageHits() {
+        return pageHits.sum();
+    }
+
+    public long pageMisses() {
+        return pageMisses.sum();
+    }
+
+    /**
+     * Find the best move for a position, returning {@link Moves#NONE} if this position is not covered
+     * by this tablebase: the fastest mate is preferred when winning, and the slowest one when losing.
+     */
+    public int bestMove(Position pos) {
+        if (probe(pos) == NOT_FOUND) {
+            return Moves.NONE;
+        }
+        final var moves = new int[MoveGenerator.MAX_MOVES];
+        final int count = MoveGenerator.generate(pos, moves, false);
+        int bestMove = Moves.NONE;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < count; ++i) {
+            pos.makeMove(moves[i]);
+            if (!pos.isKingAttacked(pos.side ^ 1)) {
+                int score = probe(pos);
+                // Once the extra piece is captured (or promoted to a minor piece), this is a draw.
+                score = score == NOT_FOUND ? 0 : -score;
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = moves[i];
+                }
+            }
+            pos.unmakeMove(moves[i]);
+        }
+        return bestMove;
+    }
+
+    /**
+     * Get the outcome of a position, returning <code>null</code> if this position is not covered by this tablebase.
+     */
+    public Outcome outcome(Position pos) {
+        final int score = probe(pos);
+        if (score == NOT_FOUND) {
+            return null;
+        }
+        if (score == 0) {
+            return new Outcome(Outcome.Type.DRAW, 0);
+        }
+        return score > 0 ? new Outcome(Outcome.Type.WIN, Search.MATE - score)
+                : new Outcome(Outcome.Type.LOSS, Search.MATE + score);
+    }
+
+    /**
+     * Probe a position, returning a search score from the side to move point of view
+     * (see {@link Search#MATE}), or {@link #NOT_FOUND} if this position is not covered by this tablebase.
+     */
+    int probe(Position pos) {
+        if (file == null || Long.bitCount(pos.occupied) != MAX_PIECES || pos.castling != 0) {
+            return NOT_FOUND;
+        }
+        probes.increment();
+        final int index = index(pos);
+        if (index < 0) {
+            return NOT_FOUND;
+        }
+        final var offsets = blocks[index >>> 24];
+        if (offsets == null) {
+            return NOT_FOUND;
+        }
+        final int value = value(index >>> 24, offsets, index & 0xFFFFFF);
+        if (value == INVALID) {
+            return NOT_FOUND;
+        }
+        hits.increment();
+        if (value == DRAW) {
+            return 0;
+        }
+        final int plies = value - 1;
+        return (plies & 1) == 1 ? Search.MATE - plies : -Search.MATE + plies;
+    }
+
+    /**
+     * Compute the index of a 3-piece position, including the type of the extra piece (bits 24-26),
+     * or -1 if the extra piece is a minor piece. Positions where Black has the extra piece are mirrored,
+     * so that tables only include positions where White has the extra piece.
+     */
+    static int index(Position pos) {
+        final long extra = pos.occupied & ~(pos.pieces[KING] | pos.pieces[6 + KING]);
+        final int sq = Long.numberOfTrailingZeros(extra);
+        final int piece = pos.board[sq];
+        final int type = piece % 6;
+        if (type == KNIGHT || type == BISHOP) {
+            return -1;
+        }
+        final int strong = piece / 6;
+        // Mirroring a position flips ranks (a1 <-> a8) and swaps sides.
+        final int flip = strong == WHITE ? 0 : 56;
+        return type << 24 | index(pos.side == strong ? 0 : 1,
+                pos.kingSquare(strong) ^ flip, pos.kingSquare(strong ^ 1) ^ flip, sq ^ flip);
+    }
+
+    static int index(int weakToMove, int strongKing, int weakKing, int piece) {
+        return ((weakToMove * 64 + strongKing) * 64 + weakKing) * 64 + piece;
+    }
+
+    private int value(int type, long[] offsets, int index) {
+        final int block = index / blockSize;
+        // All blocks get their own page when the cache is large enough.
+        final int id = firstBlocks[type] + block;
+        var page = pages[id % pages.length];
+        if (page != null && page.id == id) {
+            pageHits.increment();
+        } else {
+            pageMisses.increment();
+            page = new Page(id, inflate(offsets[block], offsets[block + 1]));
+            pages[id % pages.length] = page;
+        }
+        return page.values[index % blockSize] & 0xFF;
+    }
+
+    private byte[] inflate(long start, long end) {
+        final var values = new byte[blockSize];
+        final var inflater = new Inflater();
+        try {
+            inflater.setInput(file.slice((int) start, (int) (end - start)));
+            int length = 0;
+            while (length < values.length && !inflater.finished()) {
+                final int n = inflater.inflate(values, length, values.length - length);
+                if (n == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Truncated block");
+                }
+                length += n;
+            }
+            return values;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted tablebase block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Outcome of a position from the side to move point of view: <code>plies</code> is the number of plies
+     * to mate with best play, or 0 for a draw.
+     */
+    public record Outcome(Type type, int plies) {
+        public enum Type {
+            WIN, DRAW, LOSS
+        }
+    }
+
+    private record Page(int id, byte[] values) {
+    }
+}
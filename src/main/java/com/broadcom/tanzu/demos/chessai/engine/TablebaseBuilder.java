@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import static com.broadcom.tanzu.demos.chessai.engine.Position.*;
+
+/**
+ * Create an endgame tablebase file with retrograde analysis: checkmates and stalemates are found first,
+ * and then positions are solved ply after ply, until no more position can be solved (these are draws).
+ * <p>
+ * A position is a win in <code>n</code> plies if one of its moves leads to a loss in <code>n - 1</code>
+ * plies, and a loss in <code>n</code> plies if all its moves lead to wins, the longest one being
+ * in <code>n - 1</code> plies. Tables including promotions are built once the tables they depend on are built.
+ * <p>
+ * Usage: <code>TablebaseBuilder output.tb</code>.
+ */
+public final class TablebaseBuilder {
+    static final int BLOCK_SIZE = 4096;
+
+    // Tables are built in this order: pawns are promoted to queens or rooks.
+    private static final int[] PIECE_TYPES = {QUEEN, ROOK, PAWN};
+    private static final String PIECE_CHARS = "PNBRQK";
+    private static final int UNKNOWN = 254;
+    private static final int DRAW_CHILD = -1;
+
+    private final byte[][] tables = new byte[6][];
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: TablebaseBuilder <output>");
+            System.exit(1);
+        }
+        final var builder = new TablebaseBuilder();
+        for (final int type : PIECE_TYPES) {
+            final long start = System.nanoTime();
+            final var table = builder.build(type);
+            final int[] counts = new int[256];
+            for (final byte value : table) {
+                ++counts[value & 0xFF];
+            }
+            int longest = 0;
+            int wins = 0;
+            int losses = 0;
+            for (int value = 1; value < Tablebase.INVALID; ++value) {
+                if (counts[value] != 0) {
+                    longest = value - 1;
+                    if ((value & 1) == 0) {
+                        wins += counts[value];
+                    } else {
+                        losses += counts[value];
+                    }
+                }
+            }
+            System.out.printf("Table K%sK: %d wins, %d losses, %d draws, longest mate in %d plies (%d ms)%n",
+                    PIECE_CHARS.charAt(type), wins, losses, counts[Tablebase.DRAW], longest,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        final var output = builder.write();
+        Files.write(Path.of(args[0]), output);
+        System.out.printf("Tablebase written to %s: %d bytes%n", args[0], output.length);
+    }
+
+    /**
+     * Build the table for a piece type: tables this table depends on must be built first.
+     */
+    byte[] build(int type) {
+        final var values = new byte[Tablebase.TABLE_SIZE];
+        Arrays.fill(values, (byte) Tablebase.INVALID);
+
+        // Children of each position are listed once, so that each pass only reads arrays.
+        final var firstChild = new int[Tablebase.TABLE_SIZE + 1];
+        var children = new int[Tablebase.TABLE_SIZE * 8];
+        int childCount = 0;
+        final var moves = new int[MoveGenerator.MAX_MOVES];
+        for (int index = 0; index < Tablebase.TABLE_SIZE; ++index) {
+            firstChild[index] = childCount;
+            final var pos = position(type, index);
+            if (pos == null) {
+                continue;
+            }
+            int legalMoves = 0;
+            final int count = MoveGenerator.generate(pos, moves, false);
+            for (int i = 0; i < count; ++i) {
+                pos.makeMove(moves[i]);
+                if (!pos.isKingAttacked(pos.side ^ 1)) {
+                    ++legalMoves;
+                    if (childCount == children.length) {
+                        children = Arrays.copyOf(children, children.length * 2);
+                    }
+                    // Once the extra piece is captured (or promoted to a minor piece), this is a draw.
+                    children[childCount++] = Long.bitCount(pos.occupied) == Tablebase.MAX_PIECES
+                            ? Tablebase.index(pos) : DRAW_CHILD;
+                }
+                pos.unmakeMove(moves[i]);
+            }
+            if (legalMoves == 0) {
+                // Checkmate (a loss in 0 plies) or stalemate.
+                values[index] = (byte) (pos.isInCheck() ? 1 : Tablebase.DRAW);
+            } else {
+                values[index] = (byte) UNKNOWN;
+            }
+        }
+        firstChild[Tablebase.TABLE_SIZE] = childCount;
+        tables[type] = values;
+
+        // Positions from other tables (after a promotion) may be solved later than positions from this table.
+        int lastPly = 0;
+        for (final var table : tables) {
+            if (table != null && table != values) {
+                for (final byte value : table) {
+                    if ((value & 0xFF) != Tablebase.INVALID) {
+                        lastPly = Math.max(lastPly, (value & 0xFF) - 1);
+                    }
+                }
+            }
+        }
+
+        for (int ply = 1; ply < UNKNOWN - 1; ++ply) {
+            final boolean win = (ply & 1) == 1;
+            boolean changed = false;
+            for (int index = 0; index < Tablebase.TABLE_SIZE; ++index) {
+                if ((values[index] & 0xFF) != UNKNOWN) {
+                    continue;
+                }
+                boolean solved = !win;
+                for (int i = firstChild[index]; i < firstChild[index + 1]; ++i) {
+                    // Only positions solved by previous passes are used: they are mates in less than ply plies.
+                    final int child = children[i];
+                    final int value = child == DRAW_CHILD ? Tablebase.DRAW : tables[child >>> 24][child & 0xFFFFFF] & 0xFF;
+                    final boolean known = value != Tablebase.DRAW && value < UNKNOWN && value - 1 < ply;
+                    if (win && known && (value & 1) == 1 && value - 1 == ply - 1) {
+                        solved = true;
+                        break;
+                    }
+                    if (!win && !(known && (value & 1) == 0)) {
+                        solved = false;
+                        break;
+                    }
+                }
+                if (solved) {
+                    values[index] = (byte) (ply + 1);
+                    changed = true;
+                }
+            }
+            if (changed) {
+                lastPly = Math.max(lastPly, ply);
+            } else if (ply > lastPly + 1) {
+                break;
+            }
+        }
+        for (int index = 0; index < Tablebase.TABLE_SIZE; ++index) {
+            if ((values[index] & 0xFF) == UNKNOWN) {
+                values[index] = (byte) Tablebase.DRAW;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Write all tables, compressing each block of positions on its own.
+     */
+    byte[] write() throws IOException {
+        final var compressed = new LinkedHashMap<Integer, byte[][]>();
+        for (final int type : PIECE_TYPES) {
+            final var table = tables[type];
+            final var blocks = new byte[table.length / BLOCK_SIZE][];
+            for (int i = 0; i < blocks.length; ++i) {
+                blocks[i] = deflate(table, i * BLOCK_SIZE);
+            }
+            compressed.put(type, blocks);
+        }
+
+        long offset = 3 * Integer.BYTES;
+        for (final var blocks : compressed.values()) {
+            offset += 2 * Integer.BYTES + (blocks.length + 1) * (long) Long.BYTES;
+        }
+        final var bytes = new ByteArrayOutputStream();
+        final var out = new DataOutputStream(bytes);
+        out.writeInt(Tablebase.MAGIC);
+        out.writeInt(BLOCK_SIZE);
+        out.writeInt(compressed.size());
+        for (final Map.Entry<Integer, byte[][]> e : compressed.entrySet()) {
+            out.writeInt(e.getKey());
+            out.writeInt(e.getValue().length);
+            for (final var block : e.getValue()) {
+                out.writeLong(offset);
+                offset += block.length;
+            }
+            out.writeLong(offset);
+        }
+        for (final var blocks : compressed.values()) {
+            for (final var block : blocks) {
+                out.write(block);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] table, int start) {
+        final var deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(table, start, BLOCK_SIZE);
+            deflater.finish();
+            final var out = new ByteArrayOutputStream();
+            final var buf = new byte[BLOCK_SIZE];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Create the position for a table index, returning <code>null</code> if this position is invalid.
+     */
+    private static Position position(int type, int index) {
+        final int piece = index & 63;
+        final int weakKing = index >>> 6 & 63;
+        final int strongKing = index >>> 12 & 63;
+        final boolean weakToMove = index >>> 18 != 0;
+        if (piece == weakKing || piece == strongKing || weakKing == strongKing
+                || (Attacks.KING[strongKing] & 1L << weakKing) != 0
+                || (type == PAWN && (piece < 8 || piece >= 56))) {
+            return null;
+        }
+        final var squares = new char[64];
+        Arrays.fill(squares, ' ');
+        squares[strongKing] = 'K';
+        squares[weakKing] = 'k';
+        squares[piece] = PIECE_CHARS.charAt(type);
+        final var fen = new StringBuilder(80);
+        for (int rank = 7; rank >= 0; --rank) {
+            int empty = 0;
+            for (int file = 0; file < 8; ++file) {
+                final char c = squares[rank * 8 + file];
+                if (c == ' ') {
+                    ++empty;
+                } else {
+                    if (empty != 0) {
+                        fen.append(empty);
+                        empty = 0;
+                    }
+                    fen.append(c);
+                }
+            }
+            if (empty != 0) {
+                fen.append(empty);
+            }
+            if (rank != 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(weakToMove ? " b - - 0 1" : " w - - 0 1");
+        final var pos = Position.fromFen(fen.toString());
+        // The side which is not to move cannot be in check.
+        return pos.isKingAttacked(pos.side ^ 1) ? null : pos;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transposition table shared by all searches, storing search results by position key.
+ * <p>
+ * Entries are stored as two <code>long</code> values (key XOR data, data) in a preallocated array:
+ * no lock is used, since an entry which was partially written by another thread is detected
+ * when its key is checked (the XOR does not match anymore), and it is then treated as a miss.
+ * Each bucket contains two entries, and shallow or stale entries are replaced first.
+ */
+public final class TranspositionTable {
+    static final int EXACT = 1;
+    static final int LOWER_BOUND = 2;
+    static final int UPPER_BOUND = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_ENTRIES = 2;
+    private static final long MAX_BUCKETS = 1L << 26;
+    // Number of buckets used to estimate the fill rate.
+    private static final int FILL_SAMPLE = 1000;
+
+    private final long[] table;
+    private final int bucketMask;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    public TranspositionTable(long sizeInBytes) {
+        // The number of buckets is a power of two, so that a bucket is selected with a mask.
+        final long buckets = Math.max(1, sizeInBytes / (ENTRY_BYTES * BUCKET_ENTRIES));
+        final int bucketCount = (int) Long.highestOneBit(Math.min(buckets, MAX_BUCKETS));
+        this.table = new long[bucketCount * BUCKET_ENTRIES * 2];
+        this.bucketMask = bucketCount - 1;
+    }
+
+    /**
+     * Start a new search: entries stored by previous searches are replaced first.
+     */
+    public int newSearch() {
+        return generation.incrementAndGet() & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+    }
+
+    public long sizeInBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    public long probes() {
+        return probes.sum();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Estimate the ratio of entries in use, by sampling the first buckets.
+     */
+    public double fillRate() {
+        final int buckets = Math.min(FILL_SAMPLE, bucketMask + 1);
+        int used = 0;
+        for (int i = 0; i < buckets * BUCKET_ENTRIES * 2; i += 2) {
+            if (table[i + 1] != 0) {
+                ++used;
+            }
+        }
+        return (double) used / (buckets * BUCKET_ENTRIES);
+    }
+
+    void record(long probeCount, long hitCount) {
+        // Searches count their own probes, so that shared counters are only updated once per search.
+        probes.add(probeCount);
+        hits.add(hitCount);
+    }
+
+    /**
+     * Find the entry stored for a position key, returning 0 if there is no such entry.
+     */
+    long probe(long key) {
+        final int index = bucketIndex(key);
+        for (int i = index; i < index + BUCKET_ENTRIES * 2; i += 2) {
+            final long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    void store(long key, int move, int score, int depth, int bound, int generation) {
+        final int index = bucketIndex(key);
+
+        // Replace the entry for the same position, or else the least valuable entry:
+        // deep entries from the current search are the most valuable.
+        int target = index;
+        int lowest = Integer.MAX_VALUE;
+        for (int i = index; i < index + BUCKET_ENTRIES * 2; i += 2) {
+            final long data = table[i + 1];
+            if ((table[i] ^ data) == key) {
+                if (move == Moves.NONE) {
+                    // Keep the best move we already know.
+                    move = move(data);
+                }
+                if (bound != EXACT && depth < depth(data) - 2 && generation(data) == generation) {
+                    // A much deeper entry is more useful.
+                    return;
+                }
+                target = i;
+                break;
+            }
+            final int value = depth(data) - 8 * ((generation - generation(data)) & 0xFF);
+            if (data == 0 || value < lowest) {
+                lowest = data == 0 ? Integer.MIN_VALUE : value;
+                target = i;
+            }
+        }
+
+        final long data = (move & 0x1FFFFL)
+                | ((long) (score + 0x8000) & 0xFFFF) << 17
+                | (long) (Math.min(depth, 255) & 0xFF) << 33
+                | (long) bound << 41
+                | (long) (generation & 0xFF) << 43;
+        table[target] = key ^ data;
+        table[target + 1] = data;
+    }
+
+    private int bucketIndex(long key) {
+        return (int) (key & bucketMask) * BUCKET_ENTRIES * 2;
+    }
+
+    static int move(long data) {
+        return (int) (data & 0x1FFFF);
+    }
+
+    static int score(long data) {
+        return (int) ((data >>> 17) & 0xFFFF) - 0x8000;
+    }
+
+    static int depth(long data) {
+        return (int) ((data >>> 33) & 0xFF);
+    }
+
+    static int bound(long data) {
+        return (int) ((data >>> 41) & 3);
+    }
+
+    static int generation(long data) {
+        return (int) ((data >>> 43) & 0xFF);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+/**
+ * Random keys used to compute position hashes, which are updated incrementally on each move.
+ */
+final class Zobrist {
+    static final long[] PIECES = new long[12 * 64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT = new long[8];
+    static final long SIDE;
+
+    static {
+        // Keys are generated with a fixed seed, so that hashes are stable across runs.
+        int index = 0;
+        for (int i = 0; i < PIECES.length; ++i) {
+            PIECES[i] = key(index++);
+        }
+        for (int i = 0; i < CASTLING.length; ++i) {
+            CASTLING[i] = key(index++);
+        }
+        for (int i = 0; i < EN_PASSANT.length; ++i) {
+            EN_PASSANT[i] = key(index++);
+        }
+        SIDE = key(index);
+    }
+
+    private Zobrist() {
+    }
+
+    static long piece(int piece, int sq) {
+        return PIECES[piece << 6 | sq];
+    }
+
+    private static long key(int index) {
+        // splitmix64
+        long z = 0x2545F4914F6CDD1DL + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
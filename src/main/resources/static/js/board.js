@@ -21,7 +21,100 @@ function _initPopups() {
     const popoverList = [...popoverTriggerList].map(popoverTriggerEl => new bootstrap.Popover(popoverTriggerEl))
 }
 
+const PIECES = {
+    'P': 'piece piece-w-pawn', 'N': 'piece piece-w-knight', 'B': 'piece piece-w-bishop',
+    'R': 'piece piece-w-rook', 'Q': 'piece piece-w-queen', 'K': 'piece piece-w-king',
+    'p': 'piece piece-b-pawn', 'n': 'piece piece-b-knight', 'b': 'piece piece-b-bishop',
+    'r': 'piece piece-b-rook', 'q': 'piece piece-b-queen', 'k': 'piece piece-b-king'
+};
+const SQUARE_BACKGROUNDS = ['current', 'king-attacked', 'last-move', 'light', 'dark'];
+
+function _refreshBoard(cid) {
+    if (DEBUG) console.log("Updating chess " + cid);
+    htmx.ajax('GET', '/chess/' + cid + '/board', "#chess-board");
+}
+
+function _applyMove(event) {
+    // Apply a move to the displayed board, without fetching the board again.
+    // Return false if the board cannot be updated locally: the whole board is then fetched.
+    const board = document.getElementById('chess-board');
+    const thinking = document.getElementById('status-thinking');
+    if (!board || !thinking || thinking.classList.contains('d-none')
+        || !document.getElementById('last-move') || event.result) {
+        return false;
+    }
+    if (parseInt(board.dataset.ply) + 1 !== event.ply) {
+        // We missed a move.
+        if (DEBUG) console.log("Missing moves before ply " + event.ply + ", current ply: " + board.dataset.ply);
+        return false;
+    }
+
+    // Rebuild the position using the FEN.
+    const fields = event.fen.split(' ');
+    const rows = fields[0].split('/');
+    const from = event.move.substring(0, 2);
+    const to = event.move.substring(2, 4);
+    for (let r = 0; r < 8; r++) {
+        const rank = 8 - r;
+        let file = 0;
+        for (const c of rows[r]) {
+            if (c >= '1' && c <= '8') {
+                for (let i = 0; i < parseInt(c); i++) {
+                    _updateSquare(file++, rank, null, from, to, event.check);
+                }
+            } else {
+                _updateSquare(file++, rank, PIECES[c], from, to, event.check);
+            }
+        }
+    }
+
+    thinking.classList.add('d-none');
+    document.getElementById('status-waiting').classList.remove('d-none');
+    document.getElementById('last-move').textContent = event.move;
+    document.getElementById('round').textContent = '#' + fields[5];
+    document.getElementById('moves').value = event.fen;
+    const endgame = document.getElementById('endgame-row');
+    if (endgame) {
+        document.getElementById('endgame').textContent = event.endgame || '';
+        endgame.classList.toggle('d-none', !event.endgame);
+    }
+    board.dataset.ply = event.ply;
+    return true;
+}
+
+function _updateSquare(file, rank, piece, from, to, check) {
+    const name = "abcdefgh".charAt(file) + rank;
+    const td = document.getElementById('square-' + name);
+    td.querySelectorAll('.legal-move').forEach(e => e.remove());
+    const current = td.querySelector('i.piece');
+    if (!piece) {
+        if (current) current.remove();
+    } else if (current) {
+        current.className = piece;
+    } else {
+        const i = document.createElement('i');
+        i.className = piece;
+        td.prepend(i);
+    }
+
+    // Same rules as the server: see BoardFormatter.
+    td.classList.remove(...SQUARE_BACKGROUNDS);
+    if (name === check) {
+        td.classList.add('king-attacked');
+    } else if (name === from || name === to) {
+        td.classList.add('last-move');
+    } else {
+        td.classList.add((file + rank) % 2 === 0 ? 'light' : 'dark');
+    }
+}
+
 let stompClient;
+let _stompConnected = false;
+
+function isBoardLive() {
+    // The board is only polled when board events cannot be received.
+    return _stompConnected;
+}
 
 function _initStompClient() {
     const stompConfig = {
@@ -36,17 +129,27 @@ function _initStompClient() {
         onConnect: function (str) {
             const cid = _cid;
             if (DEBUG) console.log("Subscribed to chess board updates: " + cid);
+            _stompConnected = true;
 
             const topic = '/topic/chess/' + cid;
             const sub = stompClient.subscribe(topic, function (message) {
                 const payload = JSON.parse(message.body);
                 if (DEBUG) console.log("Received event for chess " + cid + ": " + payload.type);
 
-                if (payload.type === "UPDATE_BOARD") {
-                    if (DEBUG) console.log("Updating chess " + cid);
-                    htmx.ajax('GET', '/chess/' + cid + '/board', "#chess-board")
+                if (payload.type === "MOVE" && _applyMove(payload)) {
+                    if (DEBUG) console.log("Applied move to chess " + cid + ": " + payload.move);
+                } else if (payload.type === "MOVE" || payload.type === "UPDATE_BOARD") {
+                    _refreshBoard(cid);
                 }
             });
+            // Events sent before this subscription (while loading the page, or while disconnected) were missed:
+            // fetch the board once we are subscribed.
+            _refreshBoard(cid);
+        },
+
+        onWebSocketClose: function () {
+            if (DEBUG) console.log("Disconnected from chess board updates: polling board");
+            _stompConnected = false;
         },
 
         reconnectDelay: 1000
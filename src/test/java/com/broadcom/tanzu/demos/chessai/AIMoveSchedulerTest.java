@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AIMoveSchedulerTest {
+    private ThreadPoolTaskExecutor executor;
+    private SimpleMeterRegistry meterRegistry;
+    private AIMoveScheduler scheduler;
+
+    @BeforeEach
+    void createScheduler() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new AIMoveScheduler(executor, meterRegistry, ObservationRegistry.NOOP);
+    }
+
+    @AfterEach
+    void destroyExecutor() {
+        executor.destroy();
+    }
+
+    @Test
+    void deduplicateWhileSearching() throws InterruptedException {
+        final var searching = new CountDownLatch(1);
+        final var searchDone = new CountDownLatch(1);
+        assertThat(scheduler.schedule("b1", () -> {
+            searching.countDown();
+            await(searchDone);
+            return null;
+        })).isTrue();
+        assertThat(searching.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The first search is still running: this AI move is ignored.
+        final var played = new AtomicBoolean();
+        assertThat(scheduler.schedule("b1", () -> () -> played.set(true))).isTrue();
+        assertThat(meterRegistry.counter("chess.ai.deduplicated").count()).isEqualTo(1);
+        searchDone.countDown();
+        executor.getThreadPoolExecutor().shutdown();
+        assertThat(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(played).isFalse();
+    }
+
+    @Test
+    void scheduleWhilePlayingMove() throws InterruptedException {
+        // The player answers the AI move while it is being published:
+        // the next AI move is scheduled, even though the previous task is not done yet.
+        final var nextScheduled = new AtomicBoolean();
+        final var nextPlayed = new CountDownLatch(1);
+        assertThat(scheduler.schedule("b1", () -> () ->
+                nextScheduled.set(scheduler.schedule("b1", () -> nextPlayed::countDown)))).isTrue();
+
+        assertThat(nextPlayed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(nextScheduled).isTrue();
+        assertThat(meterRegistry.counter("chess.ai.deduplicated").count()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.github.wolfraam.chessgame.ChessGame;
+import io.github.wolfraam.chessgame.notation.NotationType;
+import io.github.wolfraam.chessgame.result.ChessGameResultType;
+import io.github.wolfraam.chessgame.result.DrawType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoardRepositoryTest {
+    private static RedisServer server;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        server = RedisServer.newRedisServer();
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    private BoardRepository newRepository(BoardStorage.Layout layout, int snapshotInterval) throws IOException {
+        // The board cache is disabled, so that every board is loaded from Redis.
+        final var keys = new KeysBoardStorage(redis);
+        final var storage = switch (layout) {
+            case KEYS -> keys;
+            case HASH -> new HashBoardStorage(redis, keys);
+            case PACKED -> new PackedBoardStorage(redis, new HashBoardStorage(redis, keys),
+                    new BoardArchive(tempDir.resolve("boards.archive"), new SimpleMeterRegistry()));
+        };
+        final var meterRegistry = new SimpleMeterRegistry();
+        return new BoardRepository(storage, new BoardCache(meterRegistry, 0, Duration.ofMinutes(1)), meterRegistry,
+                ChessGame.STANDARD_INITIAL_FEN, snapshotInterval, 1);
+    }
+
+    private static Board play(BoardRepository repo, String id, String moves) {
+        // Each move is played the same way players do: the board is loaded, updated, then saved.
+        Board board = null;
+        for (final var move : moves.split(" ")) {
+            board = repo.load(id).orElseThrow();
+            board.game().playMoves(NotationType.UCI, List.of(move));
+            board = repo.save(board);
+        }
+        return board;
+    }
+
+    @ParameterizedTest
+    @EnumSource(names = {"HASH", "PACKED"})
+    void restoreFromSnapshot(BoardStorage.Layout layout) throws IOException {
+        final var repo = newRepository(layout, 4);
+        final var id = repo.newInstance().id();
+        final var played = play(repo, id, "e2e4 e7e5 g1f3 b8c6 f1c4 g8f6 d2d3");
+
+        // A snapshot is taken right before the last pawn move: only this move is replayed.
+        final var board = repo.load(id).orElseThrow();
+        assertThat(board.game().getInitialFen())
+                .isEqualTo("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4");
+        assertThat(board.game().getFen()).isEqualTo(played.game().getFen());
+        assertThat(board.version()).isEqualTo(played.version());
+
+        // All moves are still available when reading boards in batches.
+        assertThat(ChessGameUtils.getUciMoves(repo.loadAll(List.of(id)).getFirst().game()))
+                .containsExactly("e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6", "d2d3");
+    }
+
+    @ParameterizedTest
+    @EnumSource(names = {"HASH", "PACKED"})
+    void detectRepetitionAfterSnapshot(BoardStorage.Layout layout) throws IOException {
+        final var repo = newRepository(layout, 4);
+        final var id = repo.newInstance().id();
+        play(repo, id, "e2e4 e7e5 g1f3 b8c6 f1c4 g8f6 d2d3");
+        // Knights go back and forth, until the position after d2d3 is reached for the third time.
+        final var board = play(repo, id, "c6b8 f3g1 b8c6 g1f3 c6b8 f3g1 b8c6 g1f3");
+
+        final var loaded = repo.load(id).orElseThrow();
+        assertThat(loaded.game().getInitialFen()).isNotEqualTo(ChessGame.STANDARD_INITIAL_FEN);
+        assertThat(board.game().getGameResultType()).isEqualTo(ChessGameResultType.DRAW);
+        assertThat(loaded.game().getGameResultType()).isEqualTo(ChessGameResultType.DRAW);
+        assertThat(loaded.game().getGameResult().drawType).isEqualTo(DrawType.THREEFOLD_REPETITION);
+    }
+
+    @ParameterizedTest
+    @EnumSource(names = {"HASH", "PACKED"})
+    void loadMissingBoard(BoardStorage.Layout layout) throws IOException {
+        final var repo = newRepository(layout, 4);
+        assertThat(repo.load("unknown")).isEmpty();
+        assertThat(repo.loadAll(List.of("unknown"))).isEmpty();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoardStorageTest {
+    private static RedisServer server;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    @TempDir
+    Path tempDir;
+
+    // Board storages are tested against an in-process Redis server, which runs the same Lua scripts.
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        server = RedisServer.newRedisServer();
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(server.getHost(), server.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @BeforeEach
+    void flushRedis() {
+        redis.execute((RedisCallback<Object>) conn -> {
+            conn.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    private BoardStorage newStorage(BoardStorage.Layout layout) throws IOException {
+        final var keys = new KeysBoardStorage(redis);
+        return switch (layout) {
+            case KEYS -> keys;
+            case HASH -> new HashBoardStorage(redis, keys);
+            case PACKED -> new PackedBoardStorage(redis, new HashBoardStorage(redis, keys),
+                    new BoardArchive(tempDir.resolve("boards.archive"), new SimpleMeterRegistry()));
+        };
+    }
+
+    private static BoardStorage.StoredBoard board(List<String> moves, long version) {
+        return new BoardStorage.StoredBoard(null, null, moves, 0, null, version, null);
+    }
+
+    @ParameterizedTest
+    @EnumSource(names = {"HASH", "PACKED"})
+    void writeNewBoard(BoardStorage.Layout layout) throws IOException {
+        final var storage = newStorage(layout);
+        assertThat(storage.write("b1", board(List.of(), 0))).isEqualTo(1);
+        final var stored = storage.read("b1");
+        assertThat(stored.moves()).isEmpty();
+        assertThat(stored.version()).isEqualTo(1);
+        assertThat(storage.readVersion("b1")).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @EnumSource(names = {"HASH", "PACKED"})
+    void appendMoves(BoardStorage.Layout layout) throws IOException {
+        final var storage = newStorage(layout);
+        long version = storage.write("b1", board(List.of(), 0));
+        version = storage.write("b1", board(List.of("e2e4"), version));
+        version = storage.write("b1", board(List.of("e2e4", "e7e5"), version));
+        // Selecting a square does not add any move.
+        version = storage.write("b1", new BoardStorage.StoredBoard("g1", null, List.of("e2e4", "e7e5"), 0, null, version, null));
+        assertThat(version).isEqualTo(4);
+
+        final var stored = storage.read("b1");
+        assertThat(stored.moves()).containsExactly("e2e4", "e7e5");
+        assertThat(stored.currentSquare()).isEqualTo("g1");
+        assertThat(stored.version()).isEqualTo(4);
+    }
+
+    @ParameterizedTest
+    @EnumSource(names = {"HASH", "PACKED"})
+    void rejectConcurrentUpdate(BoardStorage.Layout layout) throws IOException {
+        // The append script returns -1 when the board version changed since the board was read.
+        final var storage = newStorage(layout);
+        final long version = storage.write("b1", board(List.of(), 0));
+        storage.write("b1", board(List.of("e2e4"), version));
+        assertThatThrownBy(() -> storage.write("b1", board(List.of("d2d4"), version)))
+                .isInstanceOf(BoardConflictException.class);
+        assertThat(storage.read("b1").moves()).containsExactly("e2e4");
+    }
+
+    @ParameterizedTest
+    @EnumSource(names = {"HASH", "PACKED"})
+    void rewriteMoves(BoardStorage.Layout layout) throws IOException {
+        // The append script returns -2 when more than one move was played: all moves are rewritten.
+        final var storage = newStorage(layout);
+        long version = storage.write("b1", board(List.of("e2e4"), 0));
+        version = storage.write("b1", board(List.of("e2e4", "e7e5", "g1f3"), version));
+        assertThat(version).isEqualTo(2);
+        assertThat(storage.read("b1").moves()).containsExactly("e2e4", "e7e5", "g1f3");
+
+        // Moves are also rewritten when a move is taken back.
+        version = storage.write("b1", board(List.of("e2e4"), version));
+        assertThat(storage.read("b1").moves()).containsExactly("e2e4");
+
+        // The rewrite script also checks the board version.
+        final long staleVersion = version - 1;
+        assertThatThrownBy(() -> storage.write("b1", board(List.of("e2e4", "e7e5", "g1f3"), staleVersion)))
+                .isInstanceOf(BoardConflictException.class);
+    }
+
+    @ParameterizedTest
+    @EnumSource(names = {"HASH", "PACKED"})
+    void readFromSnapshot(BoardStorage.Layout layout) throws IOException {
+        final var storage = newStorage(layout);
+        final var snapshot = new BoardStorage.Snapshot(2, "rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2");
+        long version = storage.write("b1", board(List.of("e2e4", "e7e5"), 0));
+        version = storage.write("b1", new BoardStorage.StoredBoard(null, null, List.of("e2e4", "e7e5", "g1f3"), 0,
+                snapshot, version, null));
+
+        // Moves played before the snapshot are left out, unless all moves are read.
+        final var stored = storage.read("b1");
+        assertThat(stored.snapshot()).isEqualTo(snapshot);
+        assertThat(stored.firstPly()).isEqualTo(2);
+        assertThat(stored.moves()).containsExactly("g1f3");
+        assertThat(storage.readAll(List.of("b1")).getFirst().moves()).containsExactly("e2e4", "e7e5", "g1f3");
+
+        // Moves played before the snapshot are kept when the following moves are rewritten.
+        storage.write("b1", new BoardStorage.StoredBoard(null, null, List.of("g1f3", "b8c6", "f1b5"), 2,
+                null, version, null));
+        assertThat(storage.readAll(List.of("b1")).getFirst().moves())
+                .containsExactly("e2e4", "e7e5", "g1f3", "b8c6", "f1b5");
+    }
+
+    @ParameterizedTest
+    @EnumSource(names = {"HASH", "PACKED"})
+    void readMissingBoard(BoardStorage.Layout layout) throws IOException {
+        final var storage = newStorage(layout);
+        storage.write("b1", board(List.of("e2e4"), 0));
+        assertThat(storage.read("unknown")).isNull();
+        assertThat(storage.readVersion("unknown")).isZero();
+        final var boards = storage.readAll(List.of("unknown", "b1"));
+        assertThat(boards.get(0)).isNull();
+        assertThat(boards.get(1).moves()).containsExactly("e2e4");
+    }
+
+    @ParameterizedTest
+    @EnumSource(names = {"HASH", "PACKED"})
+    void readLegacyBoard(BoardStorage.Layout layout) throws IOException {
+        // Boards stored using the legacy layout are read until they are written again.
+        newStorage(BoardStorage.Layout.KEYS).write("b1", board(List.of("e2e4", "e7e5"), 0));
+        final var storage = newStorage(layout);
+        final var stored = storage.read("b1");
+        assertThat(stored.moves()).containsExactly("e2e4", "e7e5");
+        assertThat(stored.version()).isZero();
+
+        storage.write("b1", board(List.of("e2e4", "e7e5", "g1f3"), stored.version()));
+        assertThat(storage.read("b1").moves()).containsExactly("e2e4", "e7e5", "g1f3");
+    }
+
+    @ParameterizedTest
+    @EnumSource(names = {"HASH", "PACKED"})
+    void writeAndScanBoards(BoardStorage.Layout layout) throws IOException {
+        final var storage = newStorage(layout);
+        storage.writeAll(Map.of("b1", board(List.of("e2e4"), 0), "b2", board(List.of("d2d4", "d7d5"), 0)));
+        assertThat(storage.read("b2").moves()).containsExactly("d2d4", "d7d5");
+
+        final var ids = new ArrayList<String>();
+        storage.scan(1, ids::addAll);
+        assertThat(ids).containsExactlyInAnyOrder("b1", "b2");
+    }
+
+    @Test
+    void rejectMissingMoves() throws IOException {
+        // The packed rewrite script returns -3 when moves played before the first rewritten move are missing.
+        final var storage = newStorage(BoardStorage.Layout.PACKED);
+        final long version = storage.write("b1", board(List.of("e2e4"), 0));
+        assertThatThrownBy(() -> storage.write("b1", new BoardStorage.StoredBoard(null, null, List.of("g1f3"), 3,
+                null, version, null))).isInstanceOf(IllegalStateException.class);
+        assertThat(storage.read("b1").moves()).containsExactly("e2e4");
+    }
+
+    @Test
+    void restoreArchivedBoard() throws IOException {
+        final var archive = new BoardArchive(tempDir.resolve("boards.archive"), new SimpleMeterRegistry());
+        final var storage = new PackedBoardStorage(redis, new HashBoardStorage(redis, new KeysBoardStorage(redis)), archive);
+        long version = storage.write("b1", board(List.of("e2e4"), 0));
+        version = storage.write("b1", new BoardStorage.StoredBoard(null, null, List.of("e2e4", "e7e5"), 0, null,
+                version, "DRAW"));
+        assertThat(storage.findIdleBoards(true, System.currentTimeMillis(), 10)).containsExactly("b1");
+
+        // A board is only removed from Redis if it was not updated since it was archived.
+        archive.append(List.of(storage.readEntry("b1")));
+        assertThat(storage.delete("b1", version - 1)).isFalse();
+        assertThat(storage.delete("b1", version)).isTrue();
+        assertThat(storage.readEntry("b1")).isNull();
+        assertThat(storage.findIdleBoards(false, System.currentTimeMillis(), 10)).isEmpty();
+
+        // An archived board is restored as soon as it is read.
+        final var stored = storage.read("b1");
+        assertThat(stored.moves()).containsExactly("e2e4", "e7e5");
+        assertThat(stored.version()).isEqualTo(version);
+        assertThat(stored.result()).isEqualTo("DRAW");
+        assertThat(storage.readEntry("b1")).isNotNull();
+        assertThat(storage.findIdleBoards(true, System.currentTimeMillis(), 10)).containsExactly("b1");
+    }
+}
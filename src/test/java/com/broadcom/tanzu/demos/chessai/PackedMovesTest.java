@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PackedMovesTest {
+    @Test
+    void encodeAndDecode() {
+        // Castling moves are stored as king moves, and promotions keep the promoted piece.
+        final var moves = List.of("e2e4", "e7e5", "e1g1", "e8c8", "a7a8q", "h2h1n", "b7b8r", "g2g1b", "a1h8", "h8a1");
+        final var packed = PackedMoves.encode(moves);
+        assertThat(packed).hasSize(moves.size() * PackedMoves.MOVE_SIZE);
+        assertThat(PackedMoves.decode(packed, 0)).containsExactlyElementsOf(moves);
+    }
+
+    @Test
+    void decodeFromPly() {
+        final var packed = PackedMoves.encode(List.of("e2e4", "e7e5", "g1f3"));
+        assertThat(PackedMoves.decode(packed, 1)).containsExactly("e7e5", "g1f3");
+        assertThat(PackedMoves.decode(packed, 3)).isEmpty();
+        assertThat(PackedMoves.decode(new byte[0], 0)).isEmpty();
+        assertThatThrownBy(() -> PackedMoves.decode(packed, 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PackedMoves.decode(new byte[3], 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void encodeSingleMove() {
+        // Appending a move to stored moves is the same as encoding all moves at once.
+        final var packed = new byte[2 * PackedMoves.MOVE_SIZE];
+        PackedMoves.encodeMove("d2d4", packed, 0);
+        PackedMoves.encodeMove("d7d8q", packed, PackedMoves.MOVE_SIZE);
+        assertThat(packed).isEqualTo(PackedMoves.encode(List.of("d2d4", "d7d8q")));
+        assertThat(PackedMoves.decodeMove(packed, PackedMoves.MOVE_SIZE)).isEqualTo("d7d8q");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "e2", "e2e", "e2e9", "i2e4", "e7e8k", "e7e8qq"})
+    void rejectInvalidMoves(String move) {
+        assertThatThrownBy(() -> PackedMoves.encode(List.of(move))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpeningBookTest {
+    private static OpeningBook book;
+
+    @BeforeAll
+    static void openBook() throws Exception {
+        book = OpeningBook.open(Path.of(OpeningBookTest.class.getResource("/book/openings.bin").toURI()));
+    }
+
+    @Test
+    void probeInitialPosition() {
+        assertThat(book.size()).isPositive();
+        final var pos = Position.fromFen(Position.STANDARD_FEN);
+        final var random = new Random(42);
+        final var moves = new HashSet<String>();
+        for (int i = 0; i < 100; ++i) {
+            final int move = book.probe(pos, random);
+            assertThat(move).isNotEqualTo(Moves.NONE);
+            moves.add(Moves.toUci(move));
+        }
+        // Moves are picked depending on their weight: the most common first moves are all played.
+        assertThat(moves).contains("e2e4", "d2d4").allMatch(m -> pos.parseMove(m) != Moves.NONE);
+    }
+
+    @Test
+    void probeBookLine() {
+        // Ruy Lopez, from book/openings.txt.
+        final var pos = Position.fromFen(Position.STANDARD_FEN);
+        for (final var move : "e2e4 e7e5 g1f3 b8c6 f1b5".split(" ")) {
+            pos.play(move);
+        }
+        final int move = book.probe(pos, new Random(42));
+        assertThat(move).isNotEqualTo(Moves.NONE);
+        assertThat(pos.parseMove(Moves.toUci(move))).isEqualTo(move);
+    }
+
+    @Test
+    void probeUnknownPosition() {
+        final var pos = Position.fromFen("8/8/8/4k3/8/8/8/4K2Q w - - 0 1");
+        assertThat(book.probe(pos, new Random(42))).isEqualTo(Moves.NONE);
+        assertThat(OpeningBook.empty().probe(Position.fromFen(Position.STANDARD_FEN), new Random(42)))
+                .isEqualTo(Moves.NONE);
+    }
+}
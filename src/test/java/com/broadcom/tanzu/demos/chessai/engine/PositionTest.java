@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PositionTest {
+    private static Position play(String fen, String moves) {
+        final var pos = Position.fromFen(fen);
+        for (final var move : moves.split(" ")) {
+            pos.play(move);
+        }
+        return pos;
+    }
+
+    @Test
+    void playMoves() {
+        final var pos = play(Position.STANDARD_FEN, "e2e4 c7c5 g1f3");
+        assertThat(pos.toFen()).isEqualTo("rnbqkbnr/pp1ppppp/8/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2");
+        assertThat(pos.key()).isEqualTo(Position.fromFen(pos.toFen()).key());
+        assertThat(pos.isWhiteToMove()).isFalse();
+    }
+
+    @Test
+    void rejectIllegalMoves() {
+        final var pos = Position.fromFen(Position.STANDARD_FEN);
+        assertThat(pos.parseMove("e2e5")).isEqualTo(Moves.NONE);
+        assertThatThrownBy(() -> pos.play("e1e2")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(pos.legalMoves()).hasSize(20).contains("e2e4", "g1f3").doesNotContain("e1e2");
+    }
+
+    @Test
+    void detectRepetition() {
+        final var pos = play(Position.STANDARD_FEN, "g1f3 g8f6 f3g1 f6g8");
+        assertThat(pos.isRepetition()).isTrue();
+        assertThat(pos.key()).isEqualTo(Position.fromFen(Position.STANDARD_FEN).key());
+        // This position was reached once: this is not a repetition without the history of moves.
+        assertThat(Position.fromFen(pos.toFen()).isRepetition()).isFalse();
+        // A copy keeps the history of moves.
+        assertThat(pos.copy().isRepetition()).isTrue();
+    }
+
+    @Test
+    void forgetHistoryAfterIrreversibleMove() {
+        // Positions played before a pawn move cannot be repeated anymore.
+        final var pos = play(Position.STANDARD_FEN, "g1f3 g8f6 f3g1 f6g8 e2e3 e7e6 g1f3 g8f6 f3g1 f6g8");
+        assertThat(pos.isRepetition()).isTrue();
+        pos.play("d2d3");
+        assertThat(pos.isRepetition()).isFalse();
+    }
+
+    @Test
+    void includeHistoryInHistoryKey() {
+        final var direct = play(Position.STANDARD_FEN, "g1f3 g8f6");
+        final var shuffled = play(Position.STANDARD_FEN, "g1f3 g8f6 f3g1 f6g8 g1f3 g8f6");
+        assertThat(shuffled.key()).isEqualTo(direct.key());
+        assertThat(shuffled.historyKey()).isNotEqualTo(direct.historyKey());
+
+        final var transposed = play(Position.STANDARD_FEN, "g1f3 g8f6");
+        assertThat(transposed.historyKey()).isEqualTo(direct.historyKey());
+        // Once an irreversible move is played, previous positions do not matter anymore.
+        direct.play("e2e4");
+        shuffled.play("e2e4");
+        assertThat(shuffled.historyKey()).isEqualTo(direct.historyKey());
+    }
+}
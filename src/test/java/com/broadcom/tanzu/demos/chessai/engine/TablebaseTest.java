@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2025 Broadcom, Inc. or its affiliates
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.broadcom.tanzu.demos.chessai.engine;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TablebaseTest {
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void openTablebase() throws Exception {
+        tablebase = Tablebase.open(Path.of(TablebaseTest.class.getResource("/tablebase/endgames.tb").toURI()), 2 * 1024 * 1024);
+    }
+
+    @AfterAll
+    static void checkCache() {
+        assertThat(tablebase.hits()).isPositive();
+    }
+
+    @Test
+    void probeWinningPosition() {
+        final var outcome = tablebase.outcome(Position.fromFen("8/8/8/4k3/8/8/8/4K2Q w - - 0 1"));
+        assertThat(outcome.type()).isEqualTo(Tablebase.Outcome.Type.WIN);
+        // The winning side mates on its own move.
+        assertThat(outcome.plies() % 2).isEqualTo(1);
+    }
+
+    @Test
+    void probeLosingPosition() {
+        // Same position, with Black to move: positions where Black has the extra piece are mirrored.
+        assertThat(tablebase.outcome(Position.fromFen("8/8/8/4k3/8/8/8/4K2Q b - - 0 1")).type())
+                .isEqualTo(Tablebase.Outcome.Type.LOSS);
+        assertThat(tablebase.outcome(Position.fromFen("4k2q/8/8/8/4K3/8/8/8 b - - 0 1")).type())
+                .isEqualTo(Tablebase.Outcome.Type.WIN);
+    }
+
+    @Test
+    void probeDrawnPosition() {
+        // The defending king stands in the corner, in front of a rook pawn.
+        final var outcome = tablebase.outcome(Position.fromFen("k7/8/8/8/8/8/P7/7K w - - 0 1"));
+        assertThat(outcome).isEqualTo(new Tablebase.Outcome(Tablebase.Outcome.Type.DRAW, 0));
+    }
+
+    @Test
+    void playFastestMate() {
+        // Mate in one.
+        final var pos = Position.fromFen("7k/8/6K1/8/8/8/8/R7 w - - 0 1");
+        assertThat(tablebase.outcome(pos)).isEqualTo(new Tablebase.Outcome(Tablebase.Outcome.Type.WIN, 1));
+        assertThat(Moves.toUci(tablebase.bestMove(pos))).isEqualTo("a1a8");
+    }
+
+    @Test
+    void followBestMoves() {
+        // Playing the best move for both sides gets one ply closer to mate each time.
+        final var pos = Position.fromFen("8/8/8/4k3/8/8/8/4K2Q w - - 0 1");
+        int plies = tablebase.outcome(pos).plies();
+        while (plies > 0) {
+            final int move = tablebase.bestMove(pos);
+            assertThat(move).isNotEqualTo(Moves.NONE);
+            pos.play(Moves.toUci(move));
+            plies -= 1;
+            final var outcome = tablebase.outcome(pos);
+            assertThat(outcome.plies()).isEqualTo(plies);
+        }
+        assertThat(pos.legalMoves()).isEmpty();
+        assertThat(pos.isInCheck()).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // Too many pieces.
+            "8/8/8/4k3/8/8/3P4/4K2Q w - - 0 1",
+            // Minor pieces cannot win on their own.
+            "8/8/8/4k3/8/8/8/4K2N w - - 0 1",
+            // Castling rights are not covered.
+            "4k3/8/8/8/8/8/8/R3K3 w Q - 0 1",
+    })
+    void probeUncoveredPosition(String fen) {
+        final var pos = Position.fromFen(fen);
+        assertThat(tablebase.outcome(pos)).isNull();
+        assertThat(tablebase.bestMove(pos)).isEqualTo(Moves.NONE);
+        assertThat(Tablebase.empty().outcome(Position.fromFen("8/8/8/4k3/8/8/8/4K2Q w - - 0 1"))).isNull();
+    }
+}